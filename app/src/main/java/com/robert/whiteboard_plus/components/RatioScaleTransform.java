@@ -1,55 +1,53 @@
 package com.robert.whiteboard_plus.components;
 
 import android.graphics.Bitmap;
-import android.view.ViewGroup;
-import android.widget.ImageView;
+import android.graphics.drawable.Drawable;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import com.bumptech.glide.request.target.ImageViewTarget;
-import com.robert.whiteboard_plus.components.movable.DragImageView;
+import com.bumptech.glide.request.target.CustomTarget;
+import com.bumptech.glide.request.transition.Transition;
+import com.robert.whiteboard_plus.model.scene.ImageItem;
+import com.robert.whiteboard_plus.whiteboard.CacheWhiteBoard;
 
 /**
- * Glide加载图片时，用该类对图片进行缩放
- * 目前无效
+ * Glide加载图片时，用该类对图片进行等比缩放
+ * 加载完成后将图片交给ImageItem，由显示层绘制
  */
-public class RatioScaleTransform extends ImageViewTarget<Bitmap> {
+public class RatioScaleTransform extends CustomTarget<Bitmap> {
 
     public static final String TAG = "RatioScaleTransform";
 
-    public RatioScaleTransform(ImageView view) {
-        super(view);
+    private final ImageItem imageItem;
+    private final CacheWhiteBoard cacheWhiteBoard;
+    // 图片显示的最大宽高
+    private final int maxSize;
+
+    public RatioScaleTransform(ImageItem imageItem, CacheWhiteBoard cacheWhiteBoard, int maxSize) {
+        this.imageItem = imageItem;
+        this.cacheWhiteBoard = cacheWhiteBoard;
+        this.maxSize = maxSize;
     }
 
     @Override
-    protected void setResource(@Nullable Bitmap resource) {
-
-        if (resource == null) {
-            return;
-        }
-        view.setImageBitmap(resource);
-        view.setImageBitmap(resource);
-
+    public void onResourceReady(@NonNull Bitmap resource, @Nullable Transition<? super Bitmap> transition) {
         // 获取原图的宽高
         int width = resource.getWidth();
         int height = resource.getHeight();
 
-        DragImageView dragImg = (DragImageView) view;
-        dragImg.setRoundHeight(height);
-        dragImg.setRoundWidth(width);
-
-        // 获取imageView的宽
-        int imageViewWidth = 250;
+        // 计算缩放比例，保证宽高都不超过maxSize
+        float ratio = Math.min(1f, Math.min((float) maxSize / width, (float) maxSize / height));
 
-        // 计算缩放比例
-        float sy = (float) (imageViewWidth * 0.1) / (float) (width * 0.1);
-
-        // 计算图片等比例放大后的高
-        int imageViewHeight = (int) (height * sy);
-
-        ViewGroup.LayoutParams params = view.getLayoutParams();
-        params.height = imageViewHeight;
-        view.setLayoutParams(params);
+        imageItem.setBitmap(resource);
+        imageItem.setRoundWidth((int) (width * ratio));
+        imageItem.setRoundHeight((int) (height * ratio));
+        cacheWhiteBoard.invalidateItem(imageItem);
+    }
 
+    @Override
+    public void onLoadCleared(@Nullable Drawable placeholder) {
+        imageItem.setBitmap(null);
+        cacheWhiteBoard.invalidateItem(imageItem);
     }
 }
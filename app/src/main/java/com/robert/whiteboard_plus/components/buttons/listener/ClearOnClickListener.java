@@ -27,14 +27,13 @@ public class ClearOnClickListener implements View.OnClickListener {
     public void onClick(View v) {
         Toast.makeText(v.getContext(), "已清空", Toast.LENGTH_SHORT).show();
         // 重置选择
-        storeWhiteBoard.getSelected().clear();
-        storeWhiteBoard.getSelectedImg().clear();
+        storeWhiteBoard.clearSelection();
         storeWhiteBoard.getSelectBox().setRectF(new RectF());
-        storeWhiteBoard.getSelectBox().invalidate();
+        storeWhiteBoard.invalidate();
         // 重置圈选路径
         runtimeWhiteBoard.removeAllPath();
         runtimeWhiteBoard.invalidate();
-        storeWhiteBoard.removeAllViewsInLayout();
+        storeWhiteBoard.clearItems();
     }
 
 }
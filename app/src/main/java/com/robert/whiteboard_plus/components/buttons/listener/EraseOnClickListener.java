@@ -1,15 +1,23 @@
 package com.robert.whiteboard_plus.components.buttons.listener;
 
+import android.graphics.Color;
 import android.graphics.RectF;
+import android.graphics.drawable.ColorDrawable;
+import android.view.Gravity;
+import android.view.LayoutInflater;
 import android.view.View;
+import android.view.ViewGroup;
+import android.widget.PopupWindow;
+import android.widget.Switch;
 import android.widget.Toast;
 
+import com.robert.whiteboard_plus.R;
 import com.robert.whiteboard_plus.model.Mode;
 import com.robert.whiteboard_plus.whiteboard.RuntimeWhiteBoard;
 import com.robert.whiteboard_plus.whiteboard.CacheWhiteBoard;
 import com.robert.whiteboard_plus.whiteboard.WhiteBoard;
 
-public class EraseOnClickListener implements View.OnClickListener {
+public class EraseOnClickListener implements View.OnClickListener, View.OnLongClickListener {
 
     public static final String TAG = "EraseOnClickListener";
 
@@ -18,26 +26,69 @@ public class EraseOnClickListener implements View.OnClickListener {
     private CacheWhiteBoard storeWhiteBoard;
     private RuntimeWhiteBoard runtimeWhiteBoard;
 
+    private View popView;
+    private PopupWindow popupWindow;
+
+    private Switch partialEraseSwitch;
+
     public EraseOnClickListener(WhiteBoard whiteBoard) {
         this.whiteBoard = whiteBoard;
         this.storeWhiteBoard = whiteBoard.getCacheWhiteBoard();
         this.runtimeWhiteBoard = whiteBoard.getRuntimeWhiteBoard();
+        initPopWindow();
+    }
+
+    private void initPopWindow() {
+        popView = LayoutInflater.from(runtimeWhiteBoard.getContext()).inflate(R.layout.popout_erase_option, null);
+        popupWindow = new PopupWindow(popView, ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT, true);
+        popupWindow.setBackgroundDrawable(new ColorDrawable(Color.TRANSPARENT));
+        popView.measure(View.MeasureSpec.UNSPECIFIED, View.MeasureSpec.UNSPECIFIED);
+        partialEraseSwitch = popView.findViewById(R.id.partial_erase_switch);
+        popupWindow.setOnDismissListener(new PopupWindow.OnDismissListener() {
+            @Override
+            public void onDismiss() {
+                // 更新擦除模式
+                whiteBoard.setPartialEraseOngoing(partialEraseSwitch.isChecked());
+            }
+        });
     }
 
     @Override
     public void onClick(View v) {
         Toast.makeText(v.getContext(), "擦除", Toast.LENGTH_SHORT).show();
+        switchMode();
+    }
+
+    @Override
+    public boolean onLongClick(View v) {
+        switchMode();
+        showPopWindow(v);
+        return true;
+    }
+
+    private void switchMode() {
         whiteBoard.setMode(Mode.ERASE);
         // 移除圈选框
-        if (!storeWhiteBoard.getSelected().isEmpty() || !storeWhiteBoard.getSelectedImg().isEmpty())
-            storeWhiteBoard.removeView(storeWhiteBoard.getSelectBox());
+        if (!storeWhiteBoard.getSelection().isEmpty())
+            storeWhiteBoard.hideSelectBox();
         // 重置选择
-        storeWhiteBoard.getSelected().clear();
-        storeWhiteBoard.getSelectedImg().clear();
+        storeWhiteBoard.clearSelection();
         storeWhiteBoard.getSelectBox().setRectF(new RectF());
-        storeWhiteBoard.getSelectBox().invalidate();
+        storeWhiteBoard.invalidate();
         // 重置圈选路径
         runtimeWhiteBoard.removeAllPath();
         runtimeWhiteBoard.invalidate();
     }
+
+    private void showPopWindow(View v) {
+        partialEraseSwitch.setChecked(whiteBoard.isPartialEraseOngoing());
+
+        int popupWidth = popView.getMeasuredWidth();
+        int popupHeight = popView.getMeasuredHeight();
+
+        int[] location = new int[2];
+        v.getLocationOnScreen(location);
+        popupWindow.showAtLocation(v, Gravity.NO_GRAVITY, (location[0] + v.getWidth() / 2) - popupWidth / 2, location[1] - popupHeight - 15);
+        popupWindow.update();
+    }
 }
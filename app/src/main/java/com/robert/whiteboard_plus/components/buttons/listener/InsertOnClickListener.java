@@ -6,7 +6,6 @@ import android.net.Uri;
 import android.util.DisplayMetrics;
 import android.view.View;
 import android.view.WindowManager;
-import android.widget.ImageView;
 
 import androidx.activity.result.ActivityResultCallback;
 import androidx.activity.result.ActivityResultCaller;
@@ -16,7 +15,7 @@ import androidx.activity.result.contract.ActivityResultContracts;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.robert.whiteboard_plus.whiteboard.CacheWhiteBoard;
-import com.robert.whiteboard_plus.components.movable.DragImageView;
+import com.robert.whiteboard_plus.model.scene.ImageItem;
 import com.robert.whiteboard_plus.components.RatioScaleTransform;
 import com.robert.whiteboard_plus.whiteboard.RuntimeWhiteBoard;
 import com.robert.whiteboard_plus.whiteboard.WhiteBoard;
@@ -40,21 +39,17 @@ public class InsertOnClickListener implements View.OnClickListener {
 
                 if (result == null) return;
 
-                // 加载本地图片
-                DragImageView imageView = new DragImageView(storeWhiteBoard.getContext());
-                imageView.setScaleType(ImageView.ScaleType.MATRIX);
-                imageView.setAdjustViewBounds(true);
+                // 加载本地图片，限定加载的图片宽高不超过500 * 500
+                ImageItem imageView = new ImageItem();
                 Glide.with(storeWhiteBoard.getContext())
                         .asBitmap()
                         .load(result)
                         .thumbnail(0.5f)
                         .diskCacheStrategy(DiskCacheStrategy.ALL)
-                        .into(new RatioScaleTransform(imageView));
+                        .into(new RatioScaleTransform(imageView, storeWhiteBoard, 500));
 
-                float relocateX = (whiteBoard.getDeltaX() - whiteBoard.getScaleCenterX())
-                        / whiteBoard.getScaleFactor() + whiteBoard.getScaleCenterX();
-                float relocateY = (whiteBoard.getDeltaY() - whiteBoard.getScaleCenterY())
-                        / whiteBoard.getScaleFactor() + whiteBoard.getScaleCenterY();
+                float relocateX = whiteBoard.getViewport().toWorldX(0);
+                float relocateY = whiteBoard.getViewport().toWorldY(0);
 
                 WindowManager wm = (WindowManager) whiteBoard.getContext().getSystemService(Context.WINDOW_SERVICE);
                 DisplayMetrics outMetrics = new DisplayMetrics();
@@ -65,8 +60,7 @@ public class InsertOnClickListener implements View.OnClickListener {
                 imageView.setXPos((int) relocateX + screenWidth / 4);
                 imageView.setYPos((int) relocateY + screenHeight / 4);
 
-                // 限定加载的图片宽高为500 * 500
-                storeWhiteBoard.addView(imageView, 500, 500);
+                storeWhiteBoard.addItem(imageView);
 
             }
         });
@@ -76,13 +70,12 @@ public class InsertOnClickListener implements View.OnClickListener {
     @Override
     public void onClick(View v) {
         // 移除圈选框
-        if (!storeWhiteBoard.getSelected().isEmpty() || !storeWhiteBoard.getSelectedImg().isEmpty())
-            storeWhiteBoard.removeView(storeWhiteBoard.getSelectBox());
+        if (!storeWhiteBoard.getSelection().isEmpty())
+            storeWhiteBoard.hideSelectBox();
         // 重置选择
-        storeWhiteBoard.getSelected().clear();
-        storeWhiteBoard.getSelectedImg().clear();
+        storeWhiteBoard.clearSelection();
         storeWhiteBoard.getSelectBox().setRectF(new RectF());
-        storeWhiteBoard.getSelectBox().invalidate();
+        storeWhiteBoard.invalidate();
         // 重置圈选路径
         runtimeWhiteBoard.removeAllPath();
         runtimeWhiteBoard.invalidate();
@@ -28,13 +28,12 @@ public class SelectOnClickListener implements View.OnClickListener {
 //        runtimeWhiteBoard.setMode(Mode.SELECT);
         whiteBoard.setMode(Mode.SELECT);
         // 移除圈选框
-        if (!storeWhiteBoard.getSelected().isEmpty() || !storeWhiteBoard.getSelectedImg().isEmpty())
-            storeWhiteBoard.removeView(storeWhiteBoard.getSelectBox());
+        if (!storeWhiteBoard.getSelection().isEmpty())
+            storeWhiteBoard.hideSelectBox();
         // 重置选择
-        storeWhiteBoard.getSelected().clear();
-        storeWhiteBoard.getSelectedImg().clear();
+        storeWhiteBoard.clearSelection();
         storeWhiteBoard.getSelectBox().setRectF(new RectF());
-        storeWhiteBoard.getSelectBox().invalidate();
+        storeWhiteBoard.invalidate();
         // 重置圈选路径
         runtimeWhiteBoard.removeAllPath();
         runtimeWhiteBoard.invalidate();
@@ -6,17 +6,18 @@ import android.view.MotionEvent;
 
 import com.robert.whiteboard_plus.model.Mode;
 import com.robert.whiteboard_plus.whiteboard.WhiteBoard;
+import com.robert.whiteboard_plus.whiteboard.render.RenderList;
 import com.robert.whiteboard_plus.model.utils.DrawPathUtils;
 import com.robert.whiteboard_plus.model.strategy.ErasePathStrategy;
 import com.robert.whiteboard_plus.model.strategy.PathStrategy;
 
-import org.apache.commons.lang3.tuple.MutablePair;
-
 public class EraseHandler extends ActionHandler {
 
     public static final String TAG = "EraseHandler";
 
     private PathStrategy eraseStrategy;
+    // 当前路径在绘制层中的句柄
+    private int eraseHandle = RenderList.NO_HANDLE;
 
     private long startTimer;
     private long endTimer;
@@ -75,20 +76,16 @@ public class EraseHandler extends ActionHandler {
         // 开始计时
         startTimer = System.currentTimeMillis();
         // 清空历史追踪记录
-        whiteBoard.getWritePaths().clear();
-        whiteBoard.getWritePathIds().clear();
-        whiteBoard.getHistoryPos().clear();
-
-        // 添加新的路径记录
-        whiteBoard.getWritePathIds().add(event.getPointerId(0));
-        whiteBoard.getWritePaths().add(new Path());
-        whiteBoard.getHistoryPos().add(new MutablePair<>(DrawPathUtils.locateX(event.getX(), whiteBoard),
-                DrawPathUtils.locateY(event.getY(), whiteBoard)));
+        whiteBoard.getPointerTracker().clear();
 
         // 处理擦除
         whiteBoard.setErasePath(new Path());
 
-        eraseStrategy.downPath(whiteBoard.getErasePath(), event, event.getX(), event.getY());
+        eraseHandle = eraseStrategy.downPath(whiteBoard.getErasePath(), event, event.getX(), event.getY());
+
+        // 添加新的路径记录
+        whiteBoard.getPointerTracker().add(event.getPointerId(0), eraseHandle,
+                DrawPathUtils.locateX(event.getX(), whiteBoard), DrawPathUtils.locateY(event.getY(), whiteBoard));
 
         return true;
     }
@@ -114,11 +111,13 @@ public class EraseHandler extends ActionHandler {
      * 处理擦除的ACTION_MOVE
      */
     private boolean onMove(MotionEvent event) {
-        eraseStrategy.movePath(whiteBoard.getErasePath(), event, whiteBoard.getHistoryPos().get(0).left,
-                whiteBoard.getHistoryPos().get(0).right, event.getX(), event.getY());
+        PointerTracker tracker = whiteBoard.getPointerTracker();
+        if (tracker.size() == 0) return false;
+        eraseStrategy.movePath(eraseHandle, event, tracker.getLastX(0), tracker.getLastY(0),
+                event.getX(), event.getY());
         // 更新当前手指的历史位置
-        whiteBoard.getHistoryPos().get(0).left = DrawPathUtils.locateX(event.getX(), whiteBoard);
-        whiteBoard.getHistoryPos().get(0).right = DrawPathUtils.locateY(event.getY(), whiteBoard);
+        tracker.setLastPosition(0, DrawPathUtils.locateX(event.getX(), whiteBoard),
+                DrawPathUtils.locateY(event.getY(), whiteBoard));
         return true;
     }
 
@@ -126,8 +125,8 @@ public class EraseHandler extends ActionHandler {
      * 处理擦除的ACTION_UP
      */
     private boolean onUp(MotionEvent event) {
-        whiteBoard.getHistoryPos().clear();
-        eraseStrategy.upPath(whiteBoard.getErasePath(), event, event.getX(), event.getY());
+        whiteBoard.getPointerTracker().clear();
+        eraseStrategy.upPath(eraseHandle, event, event.getX(), event.getY());
         return true;
     }
 }
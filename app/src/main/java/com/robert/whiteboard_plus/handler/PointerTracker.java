@@ -0,0 +1,125 @@
+package com.robert.whiteboard_plus.handler;
+
+import java.util.Arrays;
+
+/**
+ * 手指追踪记录
+ * 以PointerId区分各根手指，记录其在绘制层中的句柄与上一个位置（白板坐标），
+ * 书写、擦除、圈选处理器共用。全部数据存放在预分配的基本类型数组中，处理MotionEvent时不分配对象，
+ * 另以PointerId直接索引记录下标，按手指查找记录与手指在事件中的index顺序无关，也不需要遍历。
+ * 仅在UI线程访问
+ */
+public class PointerTracker {
+
+    public static final String TAG = "PointerTracker";
+
+    // 最多同时追踪的手指数量
+    public static final int MAX_POINTERS = 10;
+    // 最大的PointerId，与系统一致，更大的PointerId不追踪
+    public static final int MAX_POINTER_ID = 31;
+    // add返回值，已达到追踪上限
+    public static final int NO_SLOT = -1;
+
+    // 第i个记录对应手指的PointerId、绘制层句柄与上一个位置，按落指顺序排列
+    private final int[] pointerIds = new int[MAX_POINTERS];
+    private final int[] handles = new int[MAX_POINTERS];
+    private final float[] lastX = new float[MAX_POINTERS];
+    private final float[] lastY = new float[MAX_POINTERS];
+    private int count = 0;
+    // 以PointerId索引的记录下标，未追踪的手指为-1
+    private final int[] indexOfPointer = new int[MAX_POINTER_ID + 1];
+
+    public PointerTracker() {
+        Arrays.fill(indexOfPointer, -1);
+    }
+
+    /**
+     * 开始追踪一根手指
+     * @param pointerId 手指的PointerId
+     * @param handle 绘制层句柄，没有时为RenderList.NO_HANDLE
+     * @param x 落指位置（白板坐标）
+     * @param y 落指位置（白板坐标）
+     * @return 记录下标，已达到追踪上限、PointerId超出范围或该手指已在追踪时为NO_SLOT
+     */
+    public int add(int pointerId, int handle, float x, float y) {
+        if (count == MAX_POINTERS || pointerId < 0 || pointerId > MAX_POINTER_ID
+                || indexOfPointer[pointerId] != -1) return NO_SLOT;
+        indexOfPointer[pointerId] = count;
+        pointerIds[count] = pointerId;
+        handles[count] = handle;
+        lastX[count] = x;
+        lastY[count] = y;
+        return count++;
+    }
+
+    /**
+     * 查找手指对应的记录下标
+     * @return 未追踪该手指时为-1
+     */
+    public int indexOf(int pointerId) {
+        if (pointerId < 0 || pointerId > MAX_POINTER_ID) return -1;
+        return indexOfPointer[pointerId];
+    }
+
+    /**
+     * 停止追踪第index个记录，之后的记录依次前移
+     */
+    public void remove(int index) {
+        if (index < 0 || index >= count) return;
+        indexOfPointer[pointerIds[index]] = -1;
+        int moved = count - index - 1;
+        System.arraycopy(pointerIds, index + 1, pointerIds, index, moved);
+        System.arraycopy(handles, index + 1, handles, index, moved);
+        System.arraycopy(lastX, index + 1, lastX, index, moved);
+        System.arraycopy(lastY, index + 1, lastY, index, moved);
+        count--;
+        for (int i = index; i < count; i++) {
+            indexOfPointer[pointerIds[i]] = i;
+        }
+    }
+
+    /**
+     * 清空全部记录
+     */
+    public void clear() {
+        for (int i = 0; i < count; i++) {
+            indexOfPointer[pointerIds[i]] = -1;
+        }
+        count = 0;
+    }
+
+    /**
+     * Getters
+     */
+    public int size() {
+        return count;
+    }
+
+    public int getPointerId(int index) {
+        return pointerIds[index];
+    }
+
+    public int getHandle(int index) {
+        return handles[index];
+    }
+
+    public float getLastX(int index) {
+        return lastX[index];
+    }
+
+    public float getLastY(int index) {
+        return lastY[index];
+    }
+
+    /**
+     * Setters
+     */
+    public void setHandle(int index, int handle) {
+        handles[index] = handle;
+    }
+
+    public void setLastPosition(int index, float x, float y) {
+        lastX[index] = x;
+        lastY[index] = y;
+    }
+}
@@ -1,28 +1,24 @@
 package com.robert.whiteboard_plus.handler;
 
-import android.graphics.Matrix;
 import android.graphics.Path;
 import android.graphics.PointF;
-import android.graphics.RectF;
 import android.util.Log;
 import android.view.MotionEvent;
-import android.widget.ImageView;
 
 import com.robert.whiteboard_plus.model.Mode;
-import com.robert.whiteboard_plus.components.movable.DragImageView;
-import com.robert.whiteboard_plus.components.movable.PathView;
 import com.robert.whiteboard_plus.whiteboard.WhiteBoard;
+import com.robert.whiteboard_plus.whiteboard.render.RenderList;
 import com.robert.whiteboard_plus.model.utils.DrawPathUtils;
 import com.robert.whiteboard_plus.model.strategy.PathStrategy;
 import com.robert.whiteboard_plus.model.strategy.SelectPathStrategy;
 
-import org.apache.commons.lang3.tuple.MutablePair;
-
 public class SelectHandler extends ActionHandler {
 
     public static final String TAG = "SelectHandler";
 
     private PathStrategy selectStrategy;
+    // 当前路径在绘制层中的句柄
+    private int selectHandle = RenderList.NO_HANDLE;
 
     private long startTimer;
     private long endTimer;
@@ -91,20 +87,15 @@ public class SelectHandler extends ActionHandler {
         // 计时
         startTimer = System.currentTimeMillis();
         // 清空历史追踪记录
-        whiteBoard.getWritePaths().clear();
-        whiteBoard.getWritePathIds().clear();
-        whiteBoard.getHistoryPos().clear();
-        // 添加新的路径记录
-        whiteBoard.getWritePathIds().add(event.getPointerId(0));
-        whiteBoard.getWritePaths().add(new Path());
-        whiteBoard.getHistoryPos().add(new MutablePair<>(DrawPathUtils.locateX(event.getX(), whiteBoard),
-                DrawPathUtils.locateY(event.getY(), whiteBoard)));
+        whiteBoard.getPointerTracker().clear();
         // 设置起始点
         startPoint.set(DrawPathUtils.locateX(event.getX(), whiteBoard), DrawPathUtils.locateY(event.getY(), whiteBoard));
 
         // 调用圈选策略的onDown
         whiteBoard.setSelectPath(new Path());
-        selectStrategy.downPath(whiteBoard.getSelectPath(), event, event.getX(), event.getY());
+        selectHandle = selectStrategy.downPath(whiteBoard.getSelectPath(), event, event.getX(), event.getY());
+        // 添加新的路径记录
+        whiteBoard.getPointerTracker().add(event.getPointerId(0), selectHandle, startPoint.x, startPoint.y);
     }
 
     /**
@@ -136,28 +127,32 @@ public class SelectHandler extends ActionHandler {
      * 处理圈选ACTION_MOVE
      */
     private void onMove(MotionEvent event) {
+        PointerTracker tracker = whiteBoard.getPointerTracker();
+        if (tracker.size() == 0) return;
+        selectStrategy.movePath(selectHandle, event, tracker.getLastX(0), tracker.getLastY(0),
+                event.getX(), event.getY());
         // 更新当前手指的历史位置
-        selectStrategy.movePath(whiteBoard.getSelectPath(), event, whiteBoard.getHistoryPos().get(0).left,
-                whiteBoard.getHistoryPos().get(0).right, event.getX(), event.getY());
-        whiteBoard.getHistoryPos().get(0).left = DrawPathUtils.locateX(event.getX(0), whiteBoard);
-        whiteBoard.getHistoryPos().get(0).right = DrawPathUtils.locateY(event.getY(0), whiteBoard);
+        tracker.setLastPosition(0, DrawPathUtils.locateX(event.getX(0), whiteBoard),
+                DrawPathUtils.locateY(event.getY(0), whiteBoard));
     }
 
     /**
      * 处理圈选ACTION_UP
      */
     private void onUp(MotionEvent event) {
-        whiteBoard.getHistoryPos().clear();
-        selectStrategy.upPath(whiteBoard.getSelectPath(), event, event.getX(), event.getY());
+        whiteBoard.getPointerTracker().clear();
+        selectStrategy.upPath(selectHandle, event, event.getX(), event.getY());
     }
 
     /**
      * 处理圈选ACTION_POINTER_UP
      */
     private void onPointerUp(MotionEvent event) {
-        if (event.getActionIndex() == 0) {
-            whiteBoard.getHistoryPos().get(0).left = DrawPathUtils.locateX(event.getX(1), whiteBoard);
-            whiteBoard.getHistoryPos().get(0).right = DrawPathUtils.locateY(event.getY(1), whiteBoard);
+        PointerTracker tracker = whiteBoard.getPointerTracker();
+        if (event.getActionIndex() == 0 && tracker.size() > 0) {
+            // 第一根手指抬起后以第二根手指继续
+            tracker.setLastPosition(0, DrawPathUtils.locateX(event.getX(1), whiteBoard),
+                    DrawPathUtils.locateY(event.getY(1), whiteBoard));
         }
         mode = MODE.DEFAULT;
     }
@@ -171,37 +166,18 @@ public class SelectHandler extends ActionHandler {
         // 防止不规则手指触碰
         if (endDis > 10f) {
             float scaleFactor = endDis / startDis;
-            // 缩放笔迹
-            for (PathView s : whiteBoard.getCacheWhiteBoard().getSelected()) {
-                RectF rectF = new RectF();
-                Matrix scaleMatrix = s.getScaleMatrix();
-                s.getPath().computeBounds(rectF, true);
-                scaleMatrix.setScale(scaleFactor, scaleFactor, midPoint.x, midPoint.y);
-                s.getPath().transform(scaleMatrix);
-                s.requestLayout();
-            }
-
-            // 缩放图片
-            for (ImageView i : whiteBoard.getCacheWhiteBoard().getSelectedImg()) {
-                DragImageView dragImg = (DragImageView) i;
-
-                dragImg.setScaleFactor(scaleFactor);
-                dragImg.setScaleX(scaleFactor);
-                dragImg.setRoundWidth((int) (dragImg.getRoundWidth() * scaleFactor));
-                dragImg.setRoundHeight((int) (dragImg.getRoundHeight() * scaleFactor));
-
-                dragImg.setScaleType(ImageView.ScaleType.MATRIX);
-                dragImg.setAdjustViewBounds(true);
-                dragImg.requestLayout();
-            }
+            // 只缩放变换层，抬手时再修改元素
+            whiteBoard.getCacheWhiteBoard().scaleSelection(scaleFactor, midPoint.x, midPoint.y);
 
             startDis = endDis;
         }
 
-        selectStrategy.movePath(whiteBoard.getSelectPath(), event, whiteBoard.getHistoryPos().get(0).left,
-                whiteBoard.getHistoryPos().get(0).right, midPoint.x, midPoint.y);
-        whiteBoard.getHistoryPos().get(0).left = DrawPathUtils.locateX(midPoint.x, whiteBoard);
-        whiteBoard.getHistoryPos().get(0).right = DrawPathUtils.locateY(midPoint.y, whiteBoard);
+        PointerTracker tracker = whiteBoard.getPointerTracker();
+        if (tracker.size() == 0) return;
+        selectStrategy.movePath(selectHandle, event, tracker.getLastX(0), tracker.getLastY(0),
+                midPoint.x, midPoint.y);
+        tracker.setLastPosition(0, DrawPathUtils.locateX(midPoint.x, whiteBoard),
+                DrawPathUtils.locateY(midPoint.y, whiteBoard));
     }
 
     /**
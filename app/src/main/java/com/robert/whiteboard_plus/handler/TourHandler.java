@@ -63,7 +63,7 @@ public class TourHandler extends ActionHandler {
                 counter += 1;
                 // 如果手指数量大于3，直接开启漫游
                 // 如果手指数量等于2，需判断是否处于圈选状态，若不是则开启漫游模式
-                if (counter >= 3 || counter == 2 && getCacheWhiteBoard().getSelected().isEmpty() && getCacheWhiteBoard().getSelectedImg().isEmpty()) {
+                if (counter >= 3 || counter == 2 && getCacheWhiteBoard().getSelection().isEmpty()) {
                     whiteBoard.setTourOngoing(true);
                 }
                 break;
@@ -110,7 +110,7 @@ public class TourHandler extends ActionHandler {
                         float scaleFactor = endDis / startDis;
 
                         // 选择为空
-                        if (getCacheWhiteBoard().getSelected().isEmpty() && getCacheWhiteBoard().getSelectedImg().isEmpty() && whiteBoard.isTourOngoing()) {
+                        if (getCacheWhiteBoard().getSelection().isEmpty() && whiteBoard.isTourOngoing()) {
 
                             // 漫游模式下的缩放
                             // 缩放倍数太小或太大，停止缩放
@@ -127,7 +127,6 @@ public class TourHandler extends ActionHandler {
                             whiteBoard.setScaleFactor(whiteBoard.getScaleFactor() * scaleFactor);
 
                             startDis = endDis;
-                            getCacheWhiteBoard().invalidate();
 
 
                             return;
@@ -157,8 +156,6 @@ public class TourHandler extends ActionHandler {
             // 记录位移量
             whiteBoard.setDeltaX(whiteBoard.getDeltaX() + deltaX);
             whiteBoard.setDeltaY(whiteBoard.getDeltaY() + deltaY);
-            // 移动顶层ViewGroup的Canvas
-            getCacheWhiteBoard().invalidate();
             return true;
         }
     }
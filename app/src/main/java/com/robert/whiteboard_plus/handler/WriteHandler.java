@@ -7,20 +7,25 @@ import android.view.MotionEvent;
 import com.robert.whiteboard_plus.model.Mode;
 import com.robert.whiteboard_plus.whiteboard.WhiteBoard;
 import com.robert.whiteboard_plus.model.utils.DrawPathUtils;
-import com.robert.whiteboard_plus.model.strategy.PathStrategy;
 import com.robert.whiteboard_plus.model.strategy.WritePathStrategy;
 
-import org.apache.commons.lang3.tuple.MutablePair;
-
 public class WriteHandler extends ActionHandler {
 
     public static final String TAG = "WriteHandler";
 
-    private PathStrategy writeStrategy;
+    private WritePathStrategy writeStrategy;
 
     private long startTimer;
     private long endTimer;
 
+    // 每批换算坐标的最多采样时刻数，历史采样点更多时分批处理
+    private static final int BATCH_SAMPLES = 64;
+
+    // 批量换算坐标所用的缓冲区，按采样时刻依次存放各手指的x, y，按最多手指数预先分配，不扩容
+    private final float[] points = new float[PointerTracker.MAX_POINTERS * 2 * BATCH_SAMPLES];
+    // 第i个追踪记录对应手指在当前事件中的index，每个事件只查找一次
+    private final int[] pointerIndices = new int[PointerTracker.MAX_POINTERS];
+
     public WriteHandler(WhiteBoard whiteBoard) {
         super(whiteBoard);
         writeStrategy = new WritePathStrategy(whiteBoard);
@@ -75,17 +80,13 @@ public class WriteHandler extends ActionHandler {
         startTimer = System.currentTimeMillis();
 
         // 清空历史追踪记录
-        whiteBoard.getWritePaths().clear();
-        whiteBoard.getWritePathIds().clear();
-        whiteBoard.getHistoryPos().clear();
+        PointerTracker tracker = whiteBoard.getPointerTracker();
+        tracker.clear();
 
         // 添加新的路径记录
-        whiteBoard.getWritePathIds().add(event.getPointerId(0));
-        whiteBoard.getWritePaths().add(new Path());
-        whiteBoard.getHistoryPos().add(new MutablePair<>(DrawPathUtils.locateX(event.getX(), whiteBoard),
-                DrawPathUtils.locateY(event.getY(), whiteBoard)));
-
-        writeStrategy.downPath(whiteBoard.getWritePaths().get(0), event, event.getX(), event.getY());
+        int handle = writeStrategy.downPath(new Path(), event, event.getX(), event.getY());
+        tracker.add(event.getPointerId(0), handle, DrawPathUtils.locateX(event.getX(), whiteBoard),
+                DrawPathUtils.locateY(event.getY(), whiteBoard));
 
         return true;
     }
@@ -112,37 +113,71 @@ public class WriteHandler extends ActionHandler {
         }
 
         if (whiteBoard.isMultiWriteOngoing()) {
+            PointerTracker tracker = whiteBoard.getPointerTracker();
+            // 超出追踪上限的手指不书写
+            if (tracker.size() == PointerTracker.MAX_POINTERS) return true;
             // 获取新加入的手指index
             int actionIndex = event.getActionIndex();
-            // 记录该手指对应的PointerId
-            whiteBoard.getWritePathIds().add(event.getPointerId(actionIndex));
-            Path newPath = new Path();
-            whiteBoard.getWritePaths().add(newPath);
-            int index = whiteBoard.getWritePathIds().indexOf(event.getPointerId(event.getActionIndex()));
-            // 记录当前手指位置
-            whiteBoard.getHistoryPos().add(new MutablePair<>(DrawPathUtils.locateX(event.getX(index), whiteBoard),
-                    DrawPathUtils.locateY(event.getY(index), whiteBoard)));
             // 调用downPath移动画笔
-            writeStrategy.downPath(newPath, event, event.getX(index), event.getY(index));
+            int handle = writeStrategy.downPath(new Path(), event, event.getX(actionIndex), event.getY(actionIndex));
+            // 记录该手指对应的PointerId、句柄与当前位置
+            tracker.add(event.getPointerId(actionIndex), handle,
+                    DrawPathUtils.locateX(event.getX(actionIndex), whiteBoard),
+                    DrawPathUtils.locateY(event.getY(actionIndex), whiteBoard));
         }
         return true;
     }
 
     /**
      * 处理书写模式的ACTION_MOVE
+     * 系统会将两帧之间的多个采样点合并为一个事件，除当前位置外还需依次处理全部历史采样点，
+     * 快速书写时笔迹才不会变成折线。整批采样点写入后只请求一次绘制
      * @param event 待处理事件
      * @return 处理完成与否
      */
     private boolean onMove(MotionEvent event) {
-        for (int i = 0; i < whiteBoard.getWritePaths().size(); i++) {
-            DrawPathUtils.onMovePath(whiteBoard.getWritePaths().get(i), whiteBoard,
-                    whiteBoard.getHistoryPos().get(i).left,
-                    whiteBoard.getHistoryPos().get(i).right,
-                    event.getX(i), event.getY(i));
-            // 更新当前手指的历史位置
-            whiteBoard.getHistoryPos().get(i).left = DrawPathUtils.locateX(event.getX(i), whiteBoard);
-            whiteBoard.getHistoryPos().get(i).right = DrawPathUtils.locateY(event.getY(i), whiteBoard);
+        PointerTracker tracker = whiteBoard.getPointerTracker();
+        int count = tracker.size();
+        if (count == 0) return true;
+        // 第h个采样时刻为历史采样点，最后一个为当前位置
+        int historySize = event.getHistorySize();
+        int samples = historySize + 1;
+        // 按PointerId找到各手指在事件中的index
+        for (int i = 0; i < count; i++) {
+            pointerIndices[i] = event.findPointerIndex(tracker.getPointerId(i));
+        }
+        // 每批将若干采样时刻、全部手指的坐标一次性换算为白板坐标，再按时间顺序交给书写策略
+        for (int from = 0; from < samples; from += BATCH_SAMPLES) {
+            int to = Math.min(samples, from + BATCH_SAMPLES);
+            for (int h = from; h < to; h++) {
+                boolean current = h == historySize;
+                for (int i = 0; i < count; i++) {
+                    int pointerIndex = pointerIndices[i];
+                    if (pointerIndex < 0) continue;
+                    int k = ((h - from) * count + i) * 2;
+                    points[k] = current ? event.getX(pointerIndex) : event.getHistoricalX(pointerIndex, h);
+                    points[k + 1] = current ? event.getY(pointerIndex) : event.getHistoricalY(pointerIndex, h);
+                }
+            }
+            whiteBoard.getViewport().toWorld(points, (to - from) * count);
+
+            for (int h = from; h < to; h++) {
+                boolean current = h == historySize;
+                long time = current ? event.getEventTime() : event.getHistoricalEventTime(h);
+                for (int i = 0; i < count; i++) {
+                    int pointerIndex = pointerIndices[i];
+                    if (pointerIndex < 0) continue;
+                    int k = ((h - from) * count + i) * 2;
+                    float x = points[k];
+                    float y = points[k + 1];
+                    float pressure = current ? event.getPressure(pointerIndex) : event.getHistoricalPressure(pointerIndex, h);
+                    writeStrategy.moveWorldPath(tracker.getPointerId(i), tracker.getHandle(i), x, y, pressure, time);
+                    // 更新当前手指的历史位置
+                    tracker.setLastPosition(i, x, y);
+                }
+            }
         }
+        whiteBoard.getRuntimeWhiteBoard().requestRender();
         return true;
     }
 
@@ -152,24 +187,21 @@ public class WriteHandler extends ActionHandler {
      * @return 处理完成与否
      */
     private boolean onUp(MotionEvent event) {
-        int index = whiteBoard.getWritePathIds().indexOf(event.getPointerId(event.getActionIndex()));
+        PointerTracker tracker = whiteBoard.getPointerTracker();
+        int actionIndex = event.getActionIndex();
+        int index = tracker.indexOf(event.getPointerId(actionIndex));
 
         if (index != 0) {
             // 移除对该手指的追踪记录
-            whiteBoard.getWritePaths().clear();
-            whiteBoard.getWritePathIds().clear();
-            whiteBoard.getHistoryPos().clear();
+            tracker.clear();
             // 清空绘制层
             whiteBoard.getRuntimeWhiteBoard().removeAllPath();
             return true;
         }
 
-        Path targetPath = whiteBoard.getWritePaths().get(index);
-        writeStrategy.upPath(targetPath, event, event.getX(index), event.getY(index));
+        writeStrategy.upPath(tracker.getHandle(index), event, event.getX(actionIndex), event.getY(actionIndex));
         // 移除对该手指的追踪记录
-        whiteBoard.getWritePaths().clear();
-        whiteBoard.getWritePathIds().clear();
-        whiteBoard.getHistoryPos().clear();
+        tracker.clear();
 
         return true;
     }
@@ -181,29 +213,25 @@ public class WriteHandler extends ActionHandler {
      */
     private boolean onPointerUp(MotionEvent event) {
 
-        int index = whiteBoard.getWritePathIds().indexOf(event.getPointerId(event.getActionIndex()));
+        PointerTracker tracker = whiteBoard.getPointerTracker();
+        int actionIndex = event.getActionIndex();
+        int index = tracker.indexOf(event.getPointerId(actionIndex));
         boolean multiWriteState = whiteBoard.isMultiWriteOngoing();
 
         // 单指书写时用多指，先抬起第一根手指
         if (!multiWriteState && index == 0) {
-            Path targetPath = whiteBoard.getWritePaths().get(index);
-            writeStrategy.upPath(targetPath, event, event.getX(index), event.getY(index));
+            writeStrategy.upPath(tracker.getHandle(index), event, event.getX(actionIndex), event.getY(actionIndex));
             // 移除对该手指的追踪记录
-            whiteBoard.getWritePaths().remove(targetPath);
-            whiteBoard.getWritePathIds().remove(index);
-            whiteBoard.getHistoryPos().remove(index);
+            tracker.remove(index);
             // 清空绘制层
             whiteBoard.getRuntimeWhiteBoard().removeAllPath();
             return true;
         }
 
-        if (multiWriteState) {
-            Path targetPath = whiteBoard.getWritePaths().get(index);
-            writeStrategy.upPath(targetPath, event, event.getX(index), event.getY(index));
+        if (multiWriteState && index >= 0) {
+            writeStrategy.upPath(tracker.getHandle(index), event, event.getX(actionIndex), event.getY(actionIndex));
             // 移除对该手指的追踪记录
-            whiteBoard.getWritePaths().remove(targetPath);
-            whiteBoard.getWritePathIds().remove(index);
-            whiteBoard.getHistoryPos().remove(index);
+            tracker.remove(index);
         }
         return true;
     }
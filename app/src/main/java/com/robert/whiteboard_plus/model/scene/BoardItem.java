@@ -0,0 +1,105 @@
+package com.robert.whiteboard_plus.model.scene;
+
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.RectF;
+
+import com.robert.whiteboard_plus.components.movable.MovableView;
+
+/**
+ * 白板元素（笔迹、图片）
+ * 由显示层统一绘制，不再对应单独的View
+ */
+public abstract class BoardItem implements MovableView {
+
+    // 元素在白板坐标下的外接矩形（含画笔宽度），几何变化后更新
+    protected final RectF bounds = new RectF();
+
+    // 以下字段由BoardScene维护
+    // 稳定编号，加入场景时分配，之后不再改变，也不会分配给其他元素
+    int itemId = -1;
+    // 加入场景的顺序，决定绘制先后；不在场景中时为-1
+    long sequence = -1;
+    // 登记到空间索引时的外接矩形
+    final RectF indexedBounds = new RectF();
+    // 最近一次命中该元素的查询标记，用于查询结果去重
+    int queryStamp;
+
+    // 是否已移入选中内容的变换层，移入期间不绘制到瓦片中
+    private boolean lifted = false;
+
+    /**
+     * 在已完成漫游变换的Canvas上绘制该元素
+     */
+    public abstract void draw(Canvas canvas);
+
+    /**
+     * 以指定的显示缩放倍数绘制该元素，缩小显示时可使用简化后的几何
+     * 可能在瓦片光栅化线程中调用
+     * @param scale 白板坐标到像素的缩放倍数
+     */
+    public void draw(Canvas canvas, float scale) {
+        draw(canvas);
+    }
+
+    /**
+     * 平移元素
+     */
+    public abstract void offset(float dx, float dy);
+
+    /**
+     * 以矩阵变换元素，如圈选移动、缩放结束时提交累计的变换
+     */
+    public abstract void transform(Matrix matrix);
+
+    /**
+     * 根据当前几何重新计算外接矩形
+     */
+    public abstract void updateBounds();
+
+    public int getItemId() {
+        return itemId;
+    }
+
+    public boolean isLifted() {
+        return lifted;
+    }
+
+    public void setLifted(boolean lifted) {
+        this.lifted = lifted;
+    }
+
+    public RectF getBounds() {
+        return bounds;
+    }
+
+    @Override
+    public int getXPos() {
+        return (int) bounds.left;
+    }
+
+    @Override
+    public int getYPos() {
+        return (int) bounds.top;
+    }
+
+    @Override
+    public void setXPos(int x) {
+        offset(x - bounds.left, 0);
+    }
+
+    @Override
+    public void setYPos(int y) {
+        offset(0, y - bounds.top);
+    }
+
+    @Override
+    public int getRoundWidth() {
+        return (int) Math.ceil(bounds.width());
+    }
+
+    @Override
+    public int getRoundHeight() {
+        return (int) Math.ceil(bounds.height());
+    }
+}
@@ -0,0 +1,182 @@
+package com.robert.whiteboard_plus.model.scene;
+
+import android.graphics.RectF;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * 白板场景
+ * 按加入顺序保存全部笔迹和图片，后加入的元素绘制在上方，仅在UI线程访问。
+ * 元素同时登记在空间索引中，元素几何变化后需调用update更新索引
+ */
+public class BoardScene {
+
+    public static final String TAG = "BoardScene";
+
+    // 查询结果按加入顺序排列
+    private static final Comparator<BoardItem> SEQUENCE_ORDER = new Comparator<BoardItem>() {
+        @Override
+        public int compare(BoardItem a, BoardItem b) {
+            return Long.compare(a.sequence, b.sequence);
+        }
+    };
+
+    private final List<BoardItem> items = new ArrayList<>();
+    // 以稳定编号为下标的元素表，已移出场景的位置为null
+    private final List<BoardItem> itemsById = new ArrayList<>();
+    // 全部笔迹的采样点
+    private final StrokeStore strokeStore = new StrokeStore();
+    // 元素外接矩形的空间索引
+    private final SpatialGrid grid = new SpatialGrid();
+    private long nextSequence = 0;
+    private int queryStamp = 0;
+
+    public void add(BoardItem item) {
+        assignId(item);
+        item.sequence = nextSequence++;
+        item.indexedBounds.set(item.getBounds());
+        items.add(item);
+        grid.insert(item, item.indexedBounds);
+    }
+
+    public boolean remove(BoardItem item) {
+        if (!items.remove(item)) return false;
+        grid.remove(item, item.indexedBounds);
+        item.sequence = -1;
+        itemsById.set(item.itemId, null);
+        release(item);
+        return true;
+    }
+
+    public void removeAll(Collection<? extends BoardItem> toRemove) {
+        items.removeAll(new HashSet<>(toRemove));
+        for (BoardItem item : toRemove) {
+            if (item.sequence < 0) continue;
+            grid.remove(item, item.indexedBounds);
+            item.sequence = -1;
+            itemsById.set(item.itemId, null);
+            release(item);
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < items.size(); i++) {
+            items.get(i).sequence = -1;
+            itemsById.set(items.get(i).itemId, null);
+        }
+        items.clear();
+        grid.clear();
+        strokeStore.clear();
+    }
+
+    /**
+     * 以若干新元素替换一个元素，新元素位于原元素的绘制顺序上，如局部擦除拆分出的笔迹
+     * @return 原元素不在场景中时返回false
+     */
+    public boolean replace(BoardItem item, List<? extends BoardItem> replacements) {
+        int index = items.indexOf(item);
+        if (index < 0) return false;
+        items.remove(index);
+        items.addAll(index, replacements);
+        grid.remove(item, item.indexedBounds);
+        for (int i = 0; i < replacements.size(); i++) {
+            BoardItem replacement = replacements.get(i);
+            assignId(replacement);
+            replacement.sequence = item.sequence;
+            replacement.indexedBounds.set(replacement.getBounds());
+            grid.insert(replacement, replacement.indexedBounds);
+        }
+        item.sequence = -1;
+        itemsById.set(item.itemId, null);
+        release(item);
+        return true;
+    }
+
+    /**
+     * 分配稳定编号，编号不会重复使用
+     */
+    private void assignId(BoardItem item) {
+        item.itemId = itemsById.size();
+        itemsById.add(item);
+    }
+
+    /**
+     * 元素平移、缩放或尺寸变化后更新空间索引，外接矩形未变化时直接返回
+     */
+    public void update(BoardItem item) {
+        if (item.indexedBounds.equals(item.getBounds())) return;
+        if (item.sequence < 0) return;
+        grid.remove(item, item.indexedBounds);
+        item.indexedBounds.set(item.getBounds());
+        grid.insert(item, item.indexedBounds);
+    }
+
+    /**
+     * 元素移出场景后释放其在StrokeStore中的采样点
+     */
+    private void release(BoardItem item) {
+        if (item instanceof StrokeItem) {
+            strokeStore.remove(((StrokeItem) item).getId());
+        }
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public BoardItem get(int index) {
+        return items.get(index);
+    }
+
+    /**
+     * 按稳定编号查找元素
+     * @return 元素已移出场景时返回null
+     */
+    public BoardItem getItemById(int itemId) {
+        if (itemId < 0 || itemId >= itemsById.size()) return null;
+        return itemsById.get(itemId);
+    }
+
+    /**
+     * 下一个加入场景的元素将分配的编号，已分配的编号都小于该值
+     */
+    public int getNextItemId() {
+        return itemsById.size();
+    }
+
+    /**
+     * 按加入顺序查找外接矩形与区域相交的元素
+     * @param rect 白板坐标下的区域
+     * @param out 查找结果，调用前需清空
+     */
+    public void query(RectF rect, List<BoardItem> out) {
+        grid.query(rect, ++queryStamp, out);
+        Collections.sort(out, SEQUENCE_ORDER);
+    }
+
+    /**
+     * 按加入顺序查找外接矩形与折线走廊相交的元素，如橡皮擦经过的区域
+     * @param pts 依次存放x, y的折线顶点（白板坐标）
+     * @param count 顶点数量
+     * @param radius 走廊半宽，即到折线的最大距离
+     * @param out 查找结果，调用前需清空
+     */
+    public void queryCorridor(float[] pts, int count, float radius, List<BoardItem> out) {
+        if (count <= 0) return;
+        grid.queryCorridor(pts, count, radius, ++queryStamp, out);
+        Collections.sort(out, SEQUENCE_ORDER);
+    }
+
+    public List<BoardItem> getItems() {
+        return items;
+    }
+
+    public StrokeStore getStrokeStore() {
+        return strokeStore;
+    }
+}
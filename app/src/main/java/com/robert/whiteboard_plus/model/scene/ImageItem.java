@@ -0,0 +1,119 @@
+package com.robert.whiteboard_plus.model.scene;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.RectF;
+
+/**
+ * 图片元素
+ */
+public class ImageItem extends BoardItem {
+
+    public static final String TAG = "ImageItem";
+
+    private Bitmap bitmap;
+    private final Paint paint;
+
+    // 图片左上角坐标
+    private float xPos = 0;
+    private float yPos = 0;
+    // 图片显示宽高
+    private int width;
+    private int height;
+
+    private float scaleFactor = 1;
+
+    public ImageItem() {
+        paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        if (bitmap == null || bitmap.isRecycled()) return;
+        canvas.drawBitmap(bitmap, null, bounds, paint);
+    }
+
+    @Override
+    public void offset(float dx, float dy) {
+        xPos += dx;
+        yPos += dy;
+        updateBounds();
+    }
+
+    /**
+     * 图片不旋转，按变换后的外接矩形确定位置和显示宽高
+     */
+    @Override
+    public void transform(Matrix matrix) {
+        RectF mapped = new RectF(bounds);
+        matrix.mapRect(mapped);
+        xPos = mapped.left;
+        yPos = mapped.top;
+        width = Math.round(mapped.width());
+        height = Math.round(mapped.height());
+        updateBounds();
+    }
+
+    @Override
+    public void updateBounds() {
+        bounds.set(xPos, yPos, xPos + width, yPos + height);
+    }
+
+    /**
+     * Setters
+     */
+    public void setBitmap(Bitmap bitmap) {
+        this.bitmap = bitmap;
+    }
+
+    public void setScaleFactor(float scaleFactor) {
+        this.scaleFactor = scaleFactor;
+    }
+
+    @Override
+    public void setXPos(int x) {
+        xPos = x;
+        updateBounds();
+    }
+
+    @Override
+    public void setYPos(int y) {
+        yPos = y;
+        updateBounds();
+    }
+
+    @Override
+    public void setRoundWidth(int width) {
+        this.width = width;
+        updateBounds();
+    }
+
+    @Override
+    public void setRoundHeight(int height) {
+        this.height = height;
+        updateBounds();
+    }
+
+    /**
+     * Getters
+     */
+    public Bitmap getBitmap() {
+        return bitmap;
+    }
+
+    public float getScaleFactor() {
+        return scaleFactor;
+    }
+
+    @Override
+    public int getRoundWidth() {
+        return width;
+    }
+
+    @Override
+    public int getRoundHeight() {
+        return height;
+    }
+}
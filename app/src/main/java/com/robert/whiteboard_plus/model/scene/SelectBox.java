@@ -0,0 +1,96 @@
+package com.robert.whiteboard_plus.model.scene;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+
+import com.robert.whiteboard_plus.components.movable.MovableView;
+
+/**
+ * 可移动圈选框
+ * 由显示层在全部元素之上绘制
+ */
+public class SelectBox implements MovableView {
+
+    public static final String TAG = "SelectBox";
+
+    private RectF rectF;
+    private Paint paint;
+
+    // 是否显示
+    private boolean visible = false;
+
+    public SelectBox() {
+        rectF = new RectF();
+    }
+
+    /**
+     * 在已完成漫游变换的Canvas上绘制圈选框
+     */
+    public void draw(Canvas canvas) {
+        if (!visible || rectF.isEmpty()) return;
+        canvas.drawRect(rectF, paint);
+    }
+
+    /**
+     * Setters
+     */
+    public void setRectF(RectF rectF) {
+        this.rectF = rectF;
+    }
+
+    public void setPaint(Paint paint) {
+        this.paint = paint;
+    }
+
+    public void setVisible(boolean visible) {
+        this.visible = visible;
+    }
+
+    @Override
+    public void setRoundWidth(int width) {
+        rectF.right = rectF.left + width;
+    }
+
+    @Override
+    public void setRoundHeight(int height) {
+        rectF.bottom = rectF.top + height;
+    }
+
+    @Override
+    public void setXPos(int x) {
+        rectF.offsetTo(x, rectF.top);
+    }
+
+    @Override
+    public void setYPos(int y) {
+        rectF.offsetTo(rectF.left, y);
+    }
+
+    /**
+     * Getters
+     */
+    public int getXPos() {
+        return (int) rectF.left;
+    }
+
+    public int getYPos() {
+        return (int) rectF.top;
+    }
+
+    public int getRoundHeight() {
+        return (int) Math.ceil(rectF.height());
+    }
+
+    public int getRoundWidth() {
+        return (int) Math.ceil(rectF.width());
+    }
+
+    public RectF getRectF() {
+        return rectF;
+    }
+
+    public boolean isVisible() {
+        return visible;
+    }
+}
@@ -0,0 +1,209 @@
+package com.robert.whiteboard_plus.model.scene;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 选中集合
+ * 以元素的稳定编号为下标的位图判断是否选中，另以紧凑数组按选中顺序保存编号用于遍历。
+ * 全选、反选只翻转标记，不复制数据：反选状态下，反选时已有的元素位图记录的是未选中的元素，
+ * 之后加入场景的元素默认不选中，位图记录的仍是选中的元素。遍历时扫描场景中的元素，
+ * 开销与场景大小成正比，不随已分配过的编号（如局部擦除拆分出的笔迹）增长。
+ * 已移出场景的元素在遍历时跳过。仅在UI线程访问
+ */
+public class SelectionSet implements Iterable<BoardItem> {
+
+    public static final String TAG = "SelectionSet";
+
+    private final BoardScene scene;
+
+    // 位图，第i位表示编号为i的元素是否在ids中
+    private long[] bits = new long[16];
+    // 位图中的编号
+    private int[] ids = new int[64];
+    private int count = 0;
+    // 反选状态，为true时编号小于boundary的元素中，选中的是位图之外的元素
+    private boolean inverted = false;
+    // 反选时场景的下一个编号，之后加入的元素不因反选而被选中
+    private int boundary = 0;
+
+    public SelectionSet(BoardScene scene) {
+        this.scene = scene;
+    }
+
+    /**
+     * 选中元素，O(1)
+     */
+    public void add(BoardItem item) {
+        int id = item.getItemId();
+        if (isInvertedId(id)) {
+            clearBit(id);
+        } else {
+            setBit(id);
+        }
+    }
+
+    /**
+     * 取消选中元素，需在紧凑数组中查找，O(n)
+     */
+    public void remove(BoardItem item) {
+        int id = item.getItemId();
+        if (isInvertedId(id)) {
+            setBit(id);
+        } else {
+            clearBit(id);
+        }
+    }
+
+    /**
+     * 是否选中，O(1)
+     */
+    public boolean contains(BoardItem item) {
+        int id = item.getItemId();
+        if (scene.getItemById(id) != item) return false;
+        return isSelected(id);
+    }
+
+    /**
+     * 全选
+     */
+    public void selectAll() {
+        reset();
+        inverted = true;
+        boundary = scene.getNextItemId();
+    }
+
+    /**
+     * 反选
+     * 从反选状态恢复时，上次反选后加入的元素需逐个翻转，开销与这些编号的数量成正比
+     */
+    public void invert() {
+        if (inverted) {
+            int end = scene.getNextItemId();
+            for (int id = boundary; id < end; id++) {
+                if (scene.getItemById(id) == null) continue;
+                if (testBit(id)) {
+                    clearBit(id);
+                } else {
+                    setBit(id);
+                }
+            }
+            inverted = false;
+        } else {
+            inverted = true;
+            boundary = scene.getNextItemId();
+        }
+    }
+
+    /**
+     * 清空选中
+     */
+    public void clear() {
+        reset();
+        inverted = false;
+    }
+
+    public boolean isEmpty() {
+        return !iterator().hasNext();
+    }
+
+    /**
+     * 遍历选中且仍在场景中的元素，不反选时按选中顺序，反选时按绘制顺序
+     */
+    @Override
+    public Iterator<BoardItem> iterator() {
+        return new Iterator<BoardItem>() {
+            // 不反选时为ids的下标，反选时为场景中元素的下标
+            private int cursor = 0;
+            private BoardItem next = advance();
+
+            private BoardItem advance() {
+                if (inverted) {
+                    while (cursor < scene.size()) {
+                        BoardItem item = scene.get(cursor++);
+                        if (isSelected(item.getItemId())) return item;
+                    }
+                } else {
+                    while (cursor < count) {
+                        BoardItem item = scene.getItemById(ids[cursor++]);
+                        if (item != null) return item;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public BoardItem next() {
+                if (next == null) throw new NoSuchElementException();
+                BoardItem item = next;
+                next = advance();
+                return item;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * 编号为id的元素是否选中，不检查元素是否仍在场景中
+     */
+    private boolean isSelected(int id) {
+        return testBit(id) != isInvertedId(id);
+    }
+
+    /**
+     * 编号为id的元素是否受反选影响，即位图记录的是未选中而不是选中
+     */
+    private boolean isInvertedId(int id) {
+        return inverted && id < boundary;
+    }
+
+    private void setBit(int id) {
+        if (testBit(id)) return;
+        int word = id >>> 6;
+        if (word >= bits.length) {
+            bits = Arrays.copyOf(bits, Math.max(bits.length * 2, word + 1));
+        }
+        bits[word] |= 1L << id;
+        if (count == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+        }
+        ids[count++] = id;
+    }
+
+    private void clearBit(int id) {
+        if (!testBit(id)) return;
+        bits[id >>> 6] &= ~(1L << id);
+        for (int i = 0; i < count; i++) {
+            if (ids[i] == id) {
+                System.arraycopy(ids, i + 1, ids, i, count - i - 1);
+                count--;
+                break;
+            }
+        }
+    }
+
+    private boolean testBit(int id) {
+        int word = id >>> 6;
+        return id >= 0 && word < bits.length && (bits[word] & (1L << id)) != 0;
+    }
+
+    /**
+     * 只清除已设置的位，开销与选中数量成正比
+     */
+    private void reset() {
+        for (int i = 0; i < count; i++) {
+            bits[ids[i] >>> 6] = 0;
+        }
+        count = 0;
+    }
+}
@@ -0,0 +1,161 @@
+package com.robert.whiteboard_plus.model.scene;
+
+import android.graphics.RectF;
+
+import com.robert.whiteboard_plus.model.utils.HitTestUtils;
+import com.robert.whiteboard_plus.model.utils.LongHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 均匀网格空间索引
+ * 白板坐标按固定大小划分为网格，元素登记在其外接矩形覆盖的每个格子中，
+ * 按区域或折线走廊查询时只需检查附近格子中的元素。
+ * 覆盖格子过多的大元素单独存放，每次查询都会检查。仅在UI线程访问
+ */
+class SpatialGrid {
+
+    public static final String TAG = "SpatialGrid";
+
+    // 格子边长（白板坐标）
+    private static final float CELL_SIZE = 256f;
+    // 覆盖格子数量超过该值的元素不登记到格子中
+    private static final int MAX_CELLS_PER_ITEM = 256;
+
+    // 以格子坐标为键的元素列表，键不装箱，查询时不分配对象
+    private final LongHashMap<ArrayList<BoardItem>> cells = new LongHashMap<>();
+    // 大元素
+    private final List<BoardItem> oversized = new ArrayList<>();
+
+    /**
+     * 登记元素
+     * @param bounds 登记时元素的外接矩形，删除时需传入相同的区域
+     */
+    void insert(BoardItem item, RectF bounds) {
+        int left = cell(bounds.left), top = cell(bounds.top);
+        int right = cell(bounds.right), bottom = cell(bounds.bottom);
+        if ((long) (right - left + 1) * (bottom - top + 1) > MAX_CELLS_PER_ITEM) {
+            oversized.add(item);
+            return;
+        }
+        for (int y = top; y <= bottom; y++) {
+            for (int x = left; x <= right; x++) {
+                long key = key(x, y);
+                ArrayList<BoardItem> list = cells.get(key);
+                if (list == null) {
+                    list = new ArrayList<>(4);
+                    cells.put(key, list);
+                }
+                list.add(item);
+            }
+        }
+    }
+
+    /**
+     * 删除元素
+     * @param bounds 登记时元素的外接矩形
+     */
+    void remove(BoardItem item, RectF bounds) {
+        int left = cell(bounds.left), top = cell(bounds.top);
+        int right = cell(bounds.right), bottom = cell(bounds.bottom);
+        if ((long) (right - left + 1) * (bottom - top + 1) > MAX_CELLS_PER_ITEM) {
+            oversized.remove(item);
+            return;
+        }
+        for (int y = top; y <= bottom; y++) {
+            for (int x = left; x <= right; x++) {
+                long key = key(x, y);
+                ArrayList<BoardItem> list = cells.get(key);
+                if (list == null) continue;
+                list.remove(item);
+                if (list.isEmpty()) {
+                    cells.remove(key);
+                }
+            }
+        }
+    }
+
+    void clear() {
+        cells.clear();
+        oversized.clear();
+    }
+
+    /**
+     * 查找外接矩形与区域相交的元素，同一次查询中每个元素只输出一次
+     * @param stamp 本次查询的标记，需与之前的查询不同
+     */
+    void query(RectF rect, int stamp, List<BoardItem> out) {
+        int left = cell(rect.left), top = cell(rect.top);
+        int right = cell(rect.right), bottom = cell(rect.bottom);
+        for (int y = top; y <= bottom; y++) {
+            for (int x = left; x <= right; x++) {
+                ArrayList<BoardItem> list = cells.get(key(x, y));
+                if (list == null) continue;
+                for (int i = 0; i < list.size(); i++) {
+                    collect(list.get(i), rect, stamp, out);
+                }
+            }
+        }
+        for (int i = 0; i < oversized.size(); i++) {
+            collect(oversized.get(i), rect, stamp, out);
+        }
+    }
+
+    /**
+     * 查找外接矩形与折线走廊相交的元素，走廊为到折线距离不超过radius的区域
+     * @param pts 依次存放x, y的折线顶点
+     * @param count 顶点数量
+     * @param stamp 本次查询的标记，需与之前的查询不同
+     */
+    void queryCorridor(float[] pts, int count, float radius, int stamp, List<BoardItem> out) {
+        for (int s = 0; s < count; s++) {
+            // 单个点时退化为以该点为中心的线段
+            int e = Math.min(s + 1, count - 1);
+            if (s == e && count > 1) break;
+            float x0 = pts[s * 2], y0 = pts[s * 2 + 1];
+            float x1 = pts[e * 2], y1 = pts[e * 2 + 1];
+            int left = cell(Math.min(x0, x1) - radius), top = cell(Math.min(y0, y1) - radius);
+            int right = cell(Math.max(x0, x1) + radius), bottom = cell(Math.max(y0, y1) + radius);
+            for (int y = top; y <= bottom; y++) {
+                for (int x = left; x <= right; x++) {
+                    ArrayList<BoardItem> list = cells.get(key(x, y));
+                    if (list == null) continue;
+                    for (int i = 0; i < list.size(); i++) {
+                        collectSegment(list.get(i), x0, y0, x1, y1, radius, stamp, out);
+                    }
+                }
+            }
+            for (int i = 0; i < oversized.size(); i++) {
+                collectSegment(oversized.get(i), x0, y0, x1, y1, radius, stamp, out);
+            }
+        }
+    }
+
+    private static void collect(BoardItem item, RectF rect, int stamp, List<BoardItem> out) {
+        if (item.queryStamp == stamp) return;
+        if (RectF.intersects(item.getBounds(), rect)) {
+            item.queryStamp = stamp;
+            out.add(item);
+        }
+    }
+
+    private static void collectSegment(BoardItem item, float x0, float y0, float x1, float y1,
+                                       float radius, int stamp, List<BoardItem> out) {
+        if (item.queryStamp == stamp) return;
+        RectF b = item.getBounds();
+        if (HitTestUtils.segmentIntersectsRect(x0, y0, x1, y1, b.left - radius, b.top - radius,
+                b.right + radius, b.bottom + radius)) {
+            item.queryStamp = stamp;
+            out.add(item);
+        }
+    }
+
+    private static int cell(float v) {
+        return (int) Math.floor(v / CELL_SIZE);
+    }
+
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,72 @@
+package com.robert.whiteboard_plus.model.scene;
+
+import java.util.Arrays;
+
+/**
+ * 书写中的笔迹采样点
+ * 落笔到抬笔期间按顺序记录白板坐标下的采样点，抬笔后一次性提交到StrokeStore，可重复使用
+ */
+public class StrokeBuilder {
+
+    public static final String TAG = "StrokeBuilder";
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private float[] xs = new float[INITIAL_CAPACITY];
+    private float[] ys = new float[INITIAL_CAPACITY];
+    private float[] pressures = new float[INITIAL_CAPACITY];
+    private long[] times = new long[INITIAL_CAPACITY];
+    private int count = 0;
+
+    /**
+     * 追加一个采样点
+     * @param x x坐标（白板坐标）
+     * @param y y坐标（白板坐标）
+     * @param pressure 压力
+     * @param time 采样时间（毫秒）
+     */
+    public void add(float x, float y, float pressure, long time) {
+        if (count == xs.length) {
+            int capacity = xs.length * 2;
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            pressures = Arrays.copyOf(pressures, capacity);
+            times = Arrays.copyOf(times, capacity);
+        }
+        xs[count] = x;
+        ys[count] = y;
+        pressures[count] = pressure;
+        times[count] = time;
+        count++;
+    }
+
+    /**
+     * 清空采样点，保留已分配的数组
+     */
+    public void reset() {
+        count = 0;
+    }
+
+    /**
+     * Getters
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public float[] getXs() {
+        return xs;
+    }
+
+    public float[] getYs() {
+        return ys;
+    }
+
+    public float[] getPressures() {
+        return pressures;
+    }
+
+    public long[] getTimes() {
+        return times;
+    }
+}
@@ -0,0 +1,192 @@
+package com.robert.whiteboard_plus.model.scene;
+
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+
+import com.robert.whiteboard_plus.model.utils.PathSimplifyUtils;
+
+/**
+ * 笔迹元素
+ * 采样点保存在StrokeStore中，Path只是按需生成的绘制缓存。
+ * 缩小显示时使用按缩放档位简化的笔迹（细节层级），第一次用到时生成并随笔迹缓存，几何变化后失效。
+ * 已交出的Path可能正由瓦片光栅化线程绘制，之后不再原地修改，几何变化时换用新的Path
+ */
+public class StrokeItem extends BoardItem {
+
+    public static final String TAG = "StrokeItem";
+
+    // 细节层级数量，第n层用于(2^-n, 2^-(n-1)]的缩放倍数，第0层为原始笔迹
+    private static final int LOD_LEVELS = 4;
+    // 简化允许的最大偏差（像素）
+    private static final float LOD_PIXEL_TOLERANCE = 0.5f;
+    // 简化后点数超过原来的该比例时不值得简化，直接使用原始笔迹
+    private static final float LOD_MAX_RATIO = 0.8f;
+    // 命中测试用折线的展开精度（白板坐标）
+    private static final float POLYLINE_TOLERANCE = 0.5f;
+
+    private final StrokeStore store;
+    // 笔迹在StrokeStore中的编号
+    private final int id;
+    // 笔迹的画笔，构造时在UI线程取出，瓦片线程绘制时不再访问StrokeStore的样式表
+    private final Paint paint;
+
+    // 各层级的Path缓存，第0层为完整笔迹，null表示尚未生成
+    private final Path[] lods = new Path[LOD_LEVELS];
+
+    // 命中测试用的展开折线，依次存放x, y，null表示尚未生成，仅在UI线程访问
+    private float[] polyline;
+    private int polylineCount;
+
+    public StrokeItem(StrokeStore store, int id) {
+        this.store = store;
+        this.id = id;
+        this.paint = store.getStyle(store.getStyleId(id));
+        updateBounds();
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        canvas.drawPath(getPath(), getPaint());
+    }
+
+    @Override
+    public void draw(Canvas canvas, float scale) {
+        canvas.drawPath(getLod(lodLevel(scale)), getPaint());
+    }
+
+    @Override
+    public void offset(float dx, float dy) {
+        bounds.offset(dx, dy);
+        // 已生成的Path平移后的副本替换原Path，不必重新生成。
+        // 采样点在同一把锁内平移，瓦片线程不会在两者之间用已平移的采样点生成Path
+        synchronized (lods) {
+            store.offset(id, dx, dy);
+            Path original = lods[0];
+            for (int i = 0; i < LOD_LEVELS; i++) {
+                if (lods[i] == null) continue;
+                if (i > 0 && lods[i] == original) {
+                    // 未简化的层级与第0层共用同一个Path
+                    lods[i] = lods[0];
+                } else {
+                    Path moved = new Path(lods[i]);
+                    moved.offset(dx, dy);
+                    lods[i] = moved;
+                }
+            }
+        }
+        if (polyline != null) {
+            for (int i = 0; i < polylineCount; i++) {
+                polyline[i * 2] += dx;
+                polyline[i * 2 + 1] += dy;
+            }
+        }
+    }
+
+    @Override
+    public void updateBounds() {
+        store.getBounds(id, bounds);
+        float inset = getPaint().getStrokeWidth() / 2 + 1;
+        bounds.inset(-inset, -inset);
+    }
+
+    @Override
+    public void transform(Matrix matrix) {
+        store.transform(id, matrix);
+        updateBounds();
+        clearLods();
+        polyline = null;
+    }
+
+    /**
+     * 缩放倍数对应的细节层级
+     */
+    private static int lodLevel(float scale) {
+        if (scale >= 1) return 0;
+        int level = (int) Math.ceil(-Math.log(scale) / Math.log(2));
+        return Math.min(level, LOD_LEVELS - 1);
+    }
+
+    /**
+     * 获取指定层级的笔迹，尚未生成时先简化
+     */
+    private Path getLod(int level) {
+        synchronized (lods) {
+            if (lods[0] == null) {
+                lods[0] = new Path();
+                store.buildPath(id, lods[0]);
+            }
+            if (lods[level] == null) {
+                // 保证在该层级最大缩放倍数2^-(level-1)下偏差不超过LOD_PIXEL_TOLERANCE像素
+                float tolerance = LOD_PIXEL_TOLERANCE * (1 << (level - 1));
+                Path simplified = PathSimplifyUtils.simplify(lods[0], tolerance, LOD_MAX_RATIO);
+                lods[level] = simplified != null ? simplified : lods[0];
+            }
+            return lods[level];
+        }
+    }
+
+    /**
+     * 获取展开后的笔迹折线，用于几何命中测试，第一次调用时生成
+     * @return 依次存放x, y的折线顶点，数量为getPolylineCount()
+     */
+    public float[] getPolyline() {
+        if (polyline == null) {
+            float[] approx = getPath().approximate(POLYLINE_TOLERANCE);
+            polylineCount = approx.length / 3;
+            polyline = new float[polylineCount * 2];
+            for (int i = 0; i < polylineCount; i++) {
+                polyline[i * 2] = approx[i * 3 + 1];
+                polyline[i * 2 + 1] = approx[i * 3 + 2];
+            }
+        }
+        return polyline;
+    }
+
+    public int getPolylineCount() {
+        getPolyline();
+        return polylineCount;
+    }
+
+    /**
+     * 笔迹几何变化后，已生成的细节层级失效
+     */
+    private void clearLods() {
+        synchronized (lods) {
+            for (int i = 0; i < LOD_LEVELS; i++) {
+                lods[i] = null;
+            }
+        }
+    }
+
+    /**
+     * 笔迹的宽高由采样点决定，不支持直接设置
+     */
+    @Override
+    public void setRoundWidth(int width) {
+    }
+
+    @Override
+    public void setRoundHeight(int height) {
+    }
+
+    /**
+     * Getters
+     */
+    public Path getPath() {
+        return getLod(0);
+    }
+
+    public Paint getPaint() {
+        return paint;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public StrokeStore getStore() {
+        return store;
+    }
+}
@@ -0,0 +1,427 @@
+package com.robert.whiteboard_plus.model.scene;
+
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+
+import com.robert.whiteboard_plus.model.utils.HitTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 笔迹存储
+ * 全部笔迹的采样点（x, y, 压力, 时间）连续存放在基本类型数组中，每条笔迹只记录起始位置、点数、
+ * 样式编号和外接矩形。笔迹编号只增不减，删除笔迹或清空后也不会分配给新的笔迹，
+ * 光栅化线程中仍持有旧编号的StrokeItem不会读到其他笔迹。Path只作为绘制缓存，由StrokeItem按需生成。
+ *
+ * 线程模型：只允许UI线程修改；读取采样点和样式表的方法加锁，可在瓦片光栅化线程中调用
+ */
+public class StrokeStore {
+
+    public static final String TAG = "StrokeStore";
+
+    private static final int INITIAL_POINTS = 1024;
+    private static final int INITIAL_STROKES = 64;
+    // 已删除笔迹的点数超过总点数的一半时整理数组
+    private static final int COMPACT_MIN_POINTS = 4096;
+    // 拆分笔迹时在一段线段上查找擦除边界的最大采样次数
+    private static final int MAX_BOUNDARY_STEPS = 32;
+
+    // 采样点
+    private float[] xs = new float[INITIAL_POINTS];
+    private float[] ys = new float[INITIAL_POINTS];
+    private float[] pressures = new float[INITIAL_POINTS];
+    private long[] times = new long[INITIAL_POINTS];
+    private int pointCount = 0;
+    // 已删除笔迹占用的点数
+    private int removedPoints = 0;
+
+    // 每条笔迹的数据，以笔迹编号为下标
+    private int[] offsets = new int[INITIAL_STROKES];
+    private int[] lengths = new int[INITIAL_STROKES];
+    private int[] styles = new int[INITIAL_STROKES];
+    private boolean[] alive = new boolean[INITIAL_STROKES];
+    // 外接矩形（不含画笔宽度）
+    private float[] bounds = new float[INITIAL_STROKES * 4];
+    private int strokeCount = 0;
+    private int aliveCount = 0;
+
+    // 样式表，相同样式的笔迹共用一个Paint
+    private final List<Paint> styleTable = new ArrayList<>();
+
+    // transform换算坐标用的缓冲区，点数较多时扩容后复用
+    private float[] transformBuffer = new float[INITIAL_POINTS * 2];
+
+    /**
+     * 查找或登记样式
+     * @param paint 书写所用的Paint，登记时会复制一份
+     * @return 样式编号
+     */
+    public synchronized int styleOf(Paint paint) {
+        for (int i = 0; i < styleTable.size(); i++) {
+            Paint style = styleTable.get(i);
+            if (style.getColor() == paint.getColor()
+                    && style.getStrokeWidth() == paint.getStrokeWidth()
+                    && style.getStyle() == paint.getStyle()
+                    && style.getStrokeCap() == paint.getStrokeCap()
+                    && style.getStrokeJoin() == paint.getStrokeJoin()) {
+                return i;
+            }
+        }
+        styleTable.add(new Paint(paint));
+        return styleTable.size() - 1;
+    }
+
+    public synchronized Paint getStyle(int style) {
+        return styleTable.get(style);
+    }
+
+    /**
+     * 添加笔迹
+     * @param builder 笔迹采样点
+     * @param style styleOf返回的样式编号
+     * @return 笔迹编号
+     */
+    public synchronized int add(StrokeBuilder builder, int style) {
+        return add(builder, 0, builder.getCount(), style);
+    }
+
+    /**
+     * 以builder中[from, to)区间的采样点添加笔迹
+     */
+    private int add(StrokeBuilder builder, int from, int to, int style) {
+        int count = to - from;
+        ensurePoints(pointCount + count);
+        System.arraycopy(builder.getXs(), from, xs, pointCount, count);
+        System.arraycopy(builder.getYs(), from, ys, pointCount, count);
+        System.arraycopy(builder.getPressures(), from, pressures, pointCount, count);
+        System.arraycopy(builder.getTimes(), from, times, pointCount, count);
+
+        if (strokeCount == offsets.length) growStrokes();
+        int id = strokeCount++;
+        offsets[id] = pointCount;
+        lengths[id] = count;
+        styles[id] = style;
+        alive[id] = true;
+        pointCount += count;
+        aliveCount++;
+        computeBounds(id);
+        return id;
+    }
+
+    /**
+     * 按擦除轨迹拆分笔迹，直接在采样点数组上完成，不生成Path
+     * 距离擦除轨迹不超过radius的采样点被去掉，跨过擦除区域边界的线段在边界处插入插值得到的采样点，
+     * 剩余的各个连续部分在拆分过程中依次添加为新笔迹，不需要额外记录各部分的区间。原笔迹保持不变，由调用方移除
+     * @param trail 依次存放x, y的擦除轨迹顶点
+     * @param trailCount 轨迹顶点数量
+     * @param radius 擦除半径
+     * @param scratch 拼接新笔迹用的临时缓冲
+     * @param out 用于接收新笔迹，调用方复用，整条被擦除时不添加任何元素
+     * @return 返回false：笔迹未被擦到，没有添加新笔迹
+     */
+    public synchronized boolean split(int id, float[] trail, int trailCount, float radius, StrokeBuilder scratch,
+                                      List<StrokeItem> out) {
+        int start = offsets[id];
+        int end = start + lengths[id];
+        float radiusSq = radius * radius;
+
+        // 擦除区域的外接矩形，之外的采样点和线段不必计算距离
+        float left = Float.MAX_VALUE, top = Float.MAX_VALUE;
+        float right = -Float.MAX_VALUE, bottom = -Float.MAX_VALUE;
+        for (int i = 0; i < trailCount; i++) {
+            left = Math.min(left, trail[i * 2]);
+            top = Math.min(top, trail[i * 2 + 1]);
+            right = Math.max(right, trail[i * 2]);
+            bottom = Math.max(bottom, trail[i * 2 + 1]);
+        }
+        left -= radius;
+        top -= radius;
+        right += radius;
+        bottom += radius;
+
+        int style = styles[id];
+        // 当前部分在scratch中的起始位置
+        int pieceStart = 0;
+        boolean cut = false;
+        boolean prevInside = false;
+        scratch.reset();
+        for (int i = start; i < end; i++) {
+            boolean inside = xs[i] >= left && xs[i] <= right && ys[i] >= top && ys[i] <= bottom
+                    && HitTestUtils.polylineDistSq(xs[i], ys[i], trail, trailCount) <= radiusSq;
+            if (i > start) {
+                int p = i - 1;
+                boolean nearby = Math.max(xs[p], xs[i]) >= left && Math.min(xs[p], xs[i]) <= right
+                        && Math.max(ys[p], ys[i]) >= top && Math.min(ys[p], ys[i]) <= bottom;
+                if (!prevInside && inside) {
+                    // 进入擦除区域，当前部分到边界结束
+                    appendLerp(scratch, p, i, boundary(p, i, trail, trailCount, radius, true));
+                } else if (prevInside && !inside) {
+                    // 离开擦除区域，新的部分从边界开始
+                    appendLerp(scratch, p, i, boundary(p, i, trail, trailCount, radius, false));
+                } else if (!prevInside && !inside && nearby) {
+                    // 两端都在区域外，线段仍可能穿过区域
+                    float enter = boundary(p, i, trail, trailCount, radius, true);
+                    if (enter >= 0) {
+                        appendLerp(scratch, p, i, enter);
+                        addPiece(scratch, pieceStart, scratch.getCount(), style, out);
+                        pieceStart = scratch.getCount();
+                        appendLerp(scratch, p, i, boundary(p, i, trail, trailCount, radius, false));
+                        cut = true;
+                    }
+                }
+            }
+            if (inside) {
+                // 结束当前部分
+                if (!prevInside) {
+                    addPiece(scratch, pieceStart, scratch.getCount(), style, out);
+                }
+                pieceStart = scratch.getCount();
+                cut = true;
+            } else {
+                scratch.add(xs[i], ys[i], pressures[i], times[i]);
+            }
+            prevInside = inside;
+        }
+        // 只有被擦到时才会结束过之前的部分
+        if (!cut) return false;
+        if (!prevInside) {
+            addPiece(scratch, pieceStart, scratch.getCount(), style, out);
+        }
+        return true;
+    }
+
+    /**
+     * 在采样点a到b的线段上查找擦除区域的边界
+     * @param entering true时返回从a出发进入区域前的最后位置，false时返回离开区域后的第一个位置
+     * @return 边界位置在线段上的比例，线段没有经过区域时返回-1
+     */
+    private float boundary(int a, int b, float[] trail, int trailCount, float radius, boolean entering) {
+        float dx = xs[b] - xs[a], dy = ys[b] - ys[a];
+        float len = (float) Math.sqrt(dx * dx + dy * dy);
+        // 采样间距不超过擦除半径的四分之一
+        int steps = (int) Math.min(MAX_BOUNDARY_STEPS, Math.max(1, Math.ceil(len * 4 / Math.max(radius, 0.001f))));
+        float radiusSq = radius * radius;
+        for (int k = 0; k <= steps; k++) {
+            int step = entering ? k : steps - k;
+            float t = (float) step / steps;
+            if (HitTestUtils.polylineDistSq(xs[a] + dx * t, ys[a] + dy * t, trail, trailCount) <= radiusSq) {
+                return entering ? (float) Math.max(step - 1, 0) / steps : (float) Math.min(step + 1, steps) / steps;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 以scratch中[from, to)区间的采样点添加拆分出的笔迹，少于两个点的部分无法连线，直接丢弃
+     * 新的采样点追加在数组末尾，不影响正在拆分的原笔迹
+     */
+    private void addPiece(StrokeBuilder scratch, int from, int to, int style, List<StrokeItem> out) {
+        if (to - from < 2) return;
+        out.add(new StrokeItem(this, add(scratch, from, to, style)));
+    }
+
+    /**
+     * 追加采样点a到b之间按比例t插值得到的采样点
+     */
+    private void appendLerp(StrokeBuilder builder, int a, int b, float t) {
+        if (t < 0) return;
+        builder.add(xs[a] + (xs[b] - xs[a]) * t,
+                ys[a] + (ys[b] - ys[a]) * t,
+                pressures[a] + (pressures[b] - pressures[a]) * t,
+                times[a] + (long) ((times[b] - times[a]) * t));
+    }
+
+    /**
+     * 删除笔迹，其他笔迹的编号不变
+     */
+    public synchronized void remove(int id) {
+        if (!isAlive(id)) return;
+        alive[id] = false;
+        removedPoints += lengths[id];
+        aliveCount--;
+        if (pointCount >= COMPACT_MIN_POINTS && removedPoints * 2 > pointCount) {
+            compact();
+        }
+    }
+
+    /**
+     * 删除全部笔迹，之前的笔迹编号全部失效，之后添加的笔迹继续使用新的编号
+     */
+    public synchronized void clear() {
+        pointCount = 0;
+        removedPoints = 0;
+        Arrays.fill(alive, 0, strokeCount, false);
+        Arrays.fill(lengths, 0, strokeCount, 0);
+        aliveCount = 0;
+    }
+
+    /**
+     * 平移笔迹
+     */
+    public synchronized void offset(int id, float dx, float dy) {
+        if (!isAlive(id)) return;
+        int start = offsets[id];
+        int end = start + lengths[id];
+        for (int i = start; i < end; i++) {
+            xs[i] += dx;
+            ys[i] += dy;
+        }
+        bounds[id * 4] += dx;
+        bounds[id * 4 + 1] += dy;
+        bounds[id * 4 + 2] += dx;
+        bounds[id * 4 + 3] += dy;
+    }
+
+    /**
+     * 以矩阵变换笔迹，如圈选缩放
+     */
+    public synchronized void transform(int id, Matrix matrix) {
+        if (!isAlive(id)) return;
+        int start = offsets[id];
+        int count = lengths[id];
+        if (transformBuffer.length < count * 2) {
+            transformBuffer = new float[count * 2];
+        }
+        float[] pts = transformBuffer;
+        for (int i = 0; i < count; i++) {
+            pts[i * 2] = xs[start + i];
+            pts[i * 2 + 1] = ys[start + i];
+        }
+        matrix.mapPoints(pts, 0, pts, 0, count);
+        for (int i = 0; i < count; i++) {
+            xs[start + i] = pts[i * 2];
+            ys[start + i] = pts[i * 2 + 1];
+        }
+        computeBounds(id);
+    }
+
+    /**
+     * 按书写时的连线方式生成Path：第一个点落笔，之后以前一个点为控制点、与当前点的中点为终点连接二次贝塞尔曲线
+     * @param out 生成结果，会先被重置，笔迹已删除时为空
+     */
+    public synchronized void buildPath(int id, Path out) {
+        out.rewind();
+        if (!isAlive(id)) return;
+        int start = offsets[id];
+        int count = lengths[id];
+        if (count == 0) return;
+        out.incReserve(count);
+        out.moveTo(xs[start], ys[start]);
+        for (int i = start + 1; i < start + count; i++) {
+            out.quadTo(xs[i - 1], ys[i - 1], (xs[i - 1] + xs[i]) / 2, (ys[i - 1] + ys[i]) / 2);
+        }
+    }
+
+    /**
+     * 获取笔迹的外接矩形（不含画笔宽度）
+     */
+    public synchronized void getBounds(int id, RectF out) {
+        out.set(bounds[id * 4], bounds[id * 4 + 1], bounds[id * 4 + 2], bounds[id * 4 + 3]);
+    }
+
+    public boolean isAlive(int id) {
+        return id >= 0 && id < strokeCount && alive[id];
+    }
+
+    /**
+     * 以下Getters返回内部数组，仅在UI线程使用，下标范围为[getOffset(id), getOffset(id) + getLength(id))
+     */
+    public float[] getXs() {
+        return xs;
+    }
+
+    public float[] getYs() {
+        return ys;
+    }
+
+    public float[] getPressures() {
+        return pressures;
+    }
+
+    public long[] getTimes() {
+        return times;
+    }
+
+    public int getOffset(int id) {
+        return offsets[id];
+    }
+
+    public int getLength(int id) {
+        return lengths[id];
+    }
+
+    public int getStyleId(int id) {
+        return styles[id];
+    }
+
+    public int size() {
+        return aliveCount;
+    }
+
+    /**
+     * 采样点的外接矩形即二次贝塞尔曲线控制多边形的外接矩形，一定包含整条曲线
+     */
+    private void computeBounds(int id) {
+        int start = offsets[id];
+        int end = start + lengths[id];
+        float left = Float.MAX_VALUE, top = Float.MAX_VALUE;
+        float right = -Float.MAX_VALUE, bottom = -Float.MAX_VALUE;
+        for (int i = start; i < end; i++) {
+            left = Math.min(left, xs[i]);
+            top = Math.min(top, ys[i]);
+            right = Math.max(right, xs[i]);
+            bottom = Math.max(bottom, ys[i]);
+        }
+        if (end == start) {
+            left = top = right = bottom = 0;
+        }
+        bounds[id * 4] = left;
+        bounds[id * 4 + 1] = top;
+        bounds[id * 4 + 2] = right;
+        bounds[id * 4 + 3] = bottom;
+    }
+
+    /**
+     * 去掉已删除笔迹占用的点，存活笔迹的编号不变
+     */
+    private void compact() {
+        int write = 0;
+        for (int id = 0; id < strokeCount; id++) {
+            if (!alive[id]) continue;
+            int start = offsets[id];
+            int count = lengths[id];
+            if (start != write) {
+                System.arraycopy(xs, start, xs, write, count);
+                System.arraycopy(ys, start, ys, write, count);
+                System.arraycopy(pressures, start, pressures, write, count);
+                System.arraycopy(times, start, times, write, count);
+                offsets[id] = write;
+            }
+            write += count;
+        }
+        pointCount = write;
+        removedPoints = 0;
+    }
+
+    private void ensurePoints(int required) {
+        if (required <= xs.length) return;
+        int capacity = Math.max(required, xs.length * 2);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        pressures = Arrays.copyOf(pressures, capacity);
+        times = Arrays.copyOf(times, capacity);
+    }
+
+    private void growStrokes() {
+        int capacity = offsets.length * 2;
+        offsets = Arrays.copyOf(offsets, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        styles = Arrays.copyOf(styles, capacity);
+        alive = Arrays.copyOf(alive, capacity);
+        bounds = Arrays.copyOf(bounds, capacity * 4);
+    }
+}
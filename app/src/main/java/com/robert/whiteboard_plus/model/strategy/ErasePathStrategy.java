@@ -4,13 +4,16 @@ import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Path;
 import android.view.MotionEvent;
-import android.view.View;
 
 import com.robert.whiteboard_plus.components.pen.ErasePen;
-import com.robert.whiteboard_plus.components.pen.SelectPen;
-import com.robert.whiteboard_plus.components.movable.PathView;
+import com.robert.whiteboard_plus.model.scene.BoardItem;
+import com.robert.whiteboard_plus.model.scene.StrokeBuilder;
+import com.robert.whiteboard_plus.model.scene.StrokeItem;
+import com.robert.whiteboard_plus.model.scene.StrokeStore;
 import com.robert.whiteboard_plus.whiteboard.WhiteBoard;
+import com.robert.whiteboard_plus.whiteboard.render.RenderList;
 import com.robert.whiteboard_plus.model.utils.DrawPathUtils;
+import com.robert.whiteboard_plus.model.utils.HitTestUtils;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -27,6 +30,20 @@ public class ErasePathStrategy implements PathStrategy {
     private Paint inEraserPaint;
     // 橡皮擦外圆画笔
     private Paint outEraserPaint;
+    // 橡皮擦圆点在绘制层中的句柄
+    private int eraserInDot = RenderList.NO_HANDLE;
+    private int eraserOutDot = RenderList.NO_HANDLE;
+
+    // 本次移动新增的擦除线段，依次存放起点、终点（白板坐标）
+    private final float[] segment = new float[4];
+    // 线段附近的候选元素
+    private final List<BoardItem> candidates = new ArrayList<>();
+    // 本次移动命中的笔迹
+    private final List<BoardItem> toDelete = new ArrayList<>();
+    // 局部擦除时拼接拆分结果的缓冲
+    private final StrokeBuilder splitBuffer = new StrokeBuilder();
+    // 局部擦除时接收拆分出的笔迹，每条笔迹拆分前清空后复用
+    private final List<StrokeItem> splitPieces = new ArrayList<>();
 
     public ErasePathStrategy(WhiteBoard whiteBoard) {
         this.whiteBoard = whiteBoard;
@@ -41,12 +58,12 @@ public class ErasePathStrategy implements PathStrategy {
     }
 
     @Override
-    public void downPath(Path path, MotionEvent event, float x, float y) {
+    public int downPath(Path path, MotionEvent event, float x, float y) {
         whiteBoard.getRuntimeWhiteBoard().removeAllPath();
 
         // 显示橡皮擦路径
-        whiteBoard.getRuntimeWhiteBoard().addPath(path, ErasePen.getInstance());
-        DrawPathUtils.onDownPath(path, whiteBoard, x, y);
+        int handle = whiteBoard.getRuntimeWhiteBoard().addPath(path, ErasePen.getInstance(), RenderList.LAYER_OVERLAY);
+        DrawPathUtils.onDownPath(handle, whiteBoard, x, y, event.getEventTime());
 
         // 显示橡皮擦
         // 根据触摸面积改变橡皮擦大小
@@ -56,71 +73,107 @@ public class ErasePathStrategy implements PathStrategy {
         int xPos = (int) DrawPathUtils.locateX(x, whiteBoard) - width / 2;
         int yPos = (int) DrawPathUtils.locateY(y, whiteBoard) - width / 2;
 
-        // 在绘制层显示橡皮擦
-        whiteBoard.setEraserOutDot(new Path());
-        whiteBoard.setEraserInDot(new Path());
+        // 在绘制层显示橡皮擦，圆点位于光标层，始终绘制在擦除路径上方
+        Path inDot = new Path();
+        Path outDot = new Path();
 
         int circleRadius = width / 2;
-        whiteBoard.getEraserInDot().addCircle(xPos + circleRadius, yPos + circleRadius, circleRadius - 10, Path.Direction.CW);
-        whiteBoard.getRuntimeWhiteBoard().addPath(whiteBoard.getEraserInDot(), inEraserPaint);
-        whiteBoard.getEraserOutDot().addCircle(xPos + circleRadius, yPos + circleRadius, circleRadius - 10, Path.Direction.CW);
-        whiteBoard.getRuntimeWhiteBoard().addPath(whiteBoard.getEraserOutDot(), outEraserPaint);
+        inDot.addCircle(xPos + circleRadius, yPos + circleRadius, circleRadius - 10, Path.Direction.CW);
+        eraserInDot = whiteBoard.getRuntimeWhiteBoard().addPath(inDot, inEraserPaint, RenderList.LAYER_CURSOR);
+        outDot.addCircle(xPos + circleRadius, yPos + circleRadius, circleRadius - 10, Path.Direction.CW);
+        eraserOutDot = whiteBoard.getRuntimeWhiteBoard().addPath(outDot, outEraserPaint, RenderList.LAYER_CURSOR);
 
         // 更改橡皮擦笔迹粗细
         ErasePen.getInstance().changeSize(width - 20);
+
+        // 落笔处的笔迹立即擦除
+        float worldX = DrawPathUtils.locateX(x, whiteBoard);
+        float worldY = DrawPathUtils.locateY(y, whiteBoard);
+        eraseSegment(worldX, worldY, worldX, worldY);
+        return handle;
     }
 
     @Override
-    public void movePath(Path path, MotionEvent event, float preX, float preY, float curX, float curY) {
+    public void movePath(int handle, MotionEvent event, float preX, float preY, float curX, float curY) {
         float distanceX = DrawPathUtils.locateX(curX, whiteBoard) - preX;
         float distanceY = DrawPathUtils.locateY(curY, whiteBoard) - preY;
 
         // 移动绘制层橡皮擦圆点
-        whiteBoard.getEraserInDot().offset(distanceX, distanceY);
-        whiteBoard.getEraserOutDot().offset(distanceX, distanceY);
-
-        // 重新显示圆点（防止覆盖）
-        whiteBoard.getRuntimeWhiteBoard().removePath(whiteBoard.getEraserOutDot());
-        whiteBoard.getRuntimeWhiteBoard().removePath(whiteBoard.getEraserInDot());
-        whiteBoard.getRuntimeWhiteBoard().addPath(whiteBoard.getEraserInDot(), inEraserPaint);
-        whiteBoard.getRuntimeWhiteBoard().addPath(whiteBoard.getEraserOutDot(), outEraserPaint);
+        whiteBoard.getRuntimeWhiteBoard().offsetPath(eraserInDot, distanceX, distanceY);
+        whiteBoard.getRuntimeWhiteBoard().offsetPath(eraserOutDot, distanceX, distanceY);
 
+        DrawPathUtils.onMovePath(handle, whiteBoard, curX, curY, event.getPressure(), event.getEventTime());
 
-        DrawPathUtils.onMovePath(path, whiteBoard, preX, preY, curX, curY);
+        // 只检测新增的一段擦除轨迹，命中的笔迹立即擦除
+        eraseSegment(preX, preY, preX + distanceX, preY + distanceY);
     }
 
     @Override
-    public void upPath(Path path, MotionEvent event, float x, float y) {
+    public void upPath(int handle, MotionEvent event, float x, float y) {
 
         // 移除绘制层圆点
-        whiteBoard.getRuntimeWhiteBoard().removePath(whiteBoard.getEraserOutDot());
-        whiteBoard.getRuntimeWhiteBoard().removePath(whiteBoard.getEraserInDot());
-
-        // 储存将要删除的笔迹
-        List<View> toDelete = new ArrayList<>();
-
-        // 判断与擦除路径相交的笔迹
-        for (int i = 0; i < whiteBoard.getCacheWhiteBoard().getChildCount(); i++) {
-            Path tmp = new Path();
-
-            if (whiteBoard.getCacheWhiteBoard().getChildAt(i).getClass() == PathView.class) {
-                PathView current = (PathView) whiteBoard.getCacheWhiteBoard().getChildAt(i);
-                if (current.getPaint() != SelectPen.getInstance()) {
-                    tmp.op(current.getPath(), whiteBoard.getErasePath(), Path.Op.INTERSECT);
-                    if (!tmp.isEmpty()) {
-                        toDelete.add(whiteBoard.getCacheWhiteBoard().getChildAt(i));
-                    }
+        whiteBoard.getRuntimeWhiteBoard().removePath(eraserOutDot);
+        whiteBoard.getRuntimeWhiteBoard().removePath(eraserInDot);
+        eraserOutDot = RenderList.NO_HANDLE;
+        eraserInDot = RenderList.NO_HANDLE;
+
+        // 擦除已在移动过程中完成，清除擦除笔迹
+        whiteBoard.getRuntimeWhiteBoard().removeAllPath();
+    }
+
+    /**
+     * 擦除与一段擦除轨迹相交的笔迹，局部擦除模式下只擦去经过的部分
+     * 擦除轨迹视为半径为橡皮擦半宽的胶囊体，与笔迹折线的距离不超过两者半宽之和即命中
+     * @param x0 线段起点x坐标（白板坐标）
+     * @param y0 线段起点y坐标（白板坐标）
+     * @param x1 线段终点x坐标（白板坐标）
+     * @param y1 线段终点y坐标（白板坐标）
+     */
+    private void eraseSegment(float x0, float y0, float x1, float y1) {
+        segment[0] = x0;
+        segment[1] = y0;
+        segment[2] = x1;
+        segment[3] = y1;
+        float eraserRadius = ErasePen.getInstance().getStrokeWidth() / 2;
+
+        // 由空间索引找出线段附近的元素
+        candidates.clear();
+        whiteBoard.getCacheWhiteBoard().getScene().queryCorridor(segment, 2, eraserRadius, candidates);
+
+        toDelete.clear();
+        for (int i = 0; i < candidates.size(); i++) {
+            if (candidates.get(i) instanceof StrokeItem) {
+                StrokeItem current = (StrokeItem) candidates.get(i);
+                float radius = eraserRadius + current.getPaint().getStrokeWidth() / 2;
+                if (HitTestUtils.hitsPolyline(segment, 2, current.getPolyline(), current.getPolylineCount(), radius)) {
+                    toDelete.add(current);
                 }
             }
         }
 
-        // 清除笔迹
-        for (View v : toDelete) {
-            whiteBoard.getCacheWhiteBoard().removeView(v);
+        if (toDelete.isEmpty()) return;
+        if (whiteBoard.isPartialEraseOngoing()) {
+            splitStrokes(eraserRadius);
+        } else {
+            // 清除笔迹
+            whiteBoard.getCacheWhiteBoard().removeItems(toDelete);
         }
+    }
 
-        // 清除擦除笔迹
-        whiteBoard.getRuntimeWhiteBoard().removeAllPath();
+    /**
+     * 局部擦除：命中的笔迹按擦除线段拆分，擦除区域外的部分保留为新笔迹
+     * @param eraserRadius 橡皮擦半宽
+     */
+    private void splitStrokes(float eraserRadius) {
+        for (int i = 0; i < toDelete.size(); i++) {
+            StrokeItem current = (StrokeItem) toDelete.get(i);
+            StrokeStore store = current.getStore();
+            float radius = eraserRadius + current.getPaint().getStrokeWidth() / 2;
+            splitPieces.clear();
+            if (!store.split(current.getId(), segment, 2, radius, splitBuffer, splitPieces)) continue;
+            // 场景复制新笔迹列表，不保留splitPieces
+            whiteBoard.getCacheWhiteBoard().replaceItem(current, splitPieces);
+        }
     }
 
 }
@@ -6,14 +6,15 @@ import android.view.MotionEvent;
 public interface PathStrategy {
     /**
      * 处理笔迹onDown事件
+     * @return 该笔迹在绘制层中的句柄
      */
-    void downPath(Path path, MotionEvent event, float x, float y);
+    int downPath(Path path, MotionEvent event, float x, float y);
     /**
      * 处理笔迹onMove事件
      */
-    void movePath(Path path, MotionEvent event, float preX, float preY, float curX, float curY);
+    void movePath(int handle, MotionEvent event, float preX, float preY, float curX, float curY);
     /**
      * 处理笔迹onUp事件
      */
-    void upPath(Path path, MotionEvent event, float x, float y);
+    void upPath(int handle, MotionEvent event, float x, float y);
 }
@@ -1,47 +1,125 @@
 package com.robert.whiteboard_plus.model.strategy;
 
-import android.graphics.Paint;
 import android.graphics.Path;
 import android.view.MotionEvent;
 
 import com.robert.whiteboard_plus.components.pen.WritePen;
-import com.robert.whiteboard_plus.components.movable.PathView;
+import com.robert.whiteboard_plus.handler.PointerTracker;
+import com.robert.whiteboard_plus.model.scene.StrokeBuilder;
+import com.robert.whiteboard_plus.model.scene.StrokeItem;
+import com.robert.whiteboard_plus.model.scene.StrokeStore;
 import com.robert.whiteboard_plus.whiteboard.WhiteBoard;
 import com.robert.whiteboard_plus.model.utils.DrawPathUtils;
+import com.robert.whiteboard_plus.whiteboard.render.RenderList;
+import com.robert.whiteboard_plus.whiteboard.render.SampleSink;
+
+import java.util.Arrays;
 
 /**
  * 书写策略
+ * 书写过程中在绘制层实时显示Path，同时记录采样点，抬笔后将采样点存入StrokeStore。
+ * 每根手指的采样点记录在以PointerId直接索引的StrokeBuilder中，多指书写时按手指查找不需要遍历，
+ * StrokeBuilder在抬笔提交后留给该手指的下一笔重复使用
  */
 public class WritePathStrategy implements PathStrategy {
 
     public static final String TAG = "WritePathStrategy";
 
     private WhiteBoard whiteBoard;
+    // 书写中的采样点交给绘制层
+    private final SampleSink liveSamples;
+    // 各手指书写中的笔迹采样点及其绘制层句柄，以PointerId索引，没有书写中的笔迹时句柄为NO_HANDLE
+    private final StrokeBuilder[] builders = new StrokeBuilder[PointerTracker.MAX_POINTER_ID + 1];
+    private final int[] builderHandles = new int[PointerTracker.MAX_POINTER_ID + 1];
 
     public WritePathStrategy(WhiteBoard whiteBoard) {
+        this(whiteBoard, whiteBoard.getRuntimeWhiteBoard());
+    }
+
+    /**
+     * @param liveSamples 书写中采样点的去向，单元测试中可直接传入SampleRing
+     */
+    WritePathStrategy(WhiteBoard whiteBoard, SampleSink liveSamples) {
         this.whiteBoard = whiteBoard;
+        this.liveSamples = liveSamples;
+        Arrays.fill(builderHandles, RenderList.NO_HANDLE);
     }
 
     @Override
-    public void downPath(Path path, MotionEvent event, float x, float y) {
+    public int downPath(Path path, MotionEvent event, float x, float y) {
         // 添加笔迹到绘制层
-        whiteBoard.getRuntimeWhiteBoard().addPath(path, WritePen.getInstance());
-        DrawPathUtils.onDownPath(path, whiteBoard, x, y);
+        int handle = whiteBoard.getRuntimeWhiteBoard().addPath(path, WritePen.getInstance());
+        DrawPathUtils.onDownPath(handle, whiteBoard, x, y, event.getEventTime());
+        // 记录落笔点
+        int actionIndex = event.getActionIndex();
+        beginStroke(event.getPointerId(actionIndex), handle, DrawPathUtils.locateX(x, whiteBoard),
+                DrawPathUtils.locateY(y, whiteBoard), event.getPressure(actionIndex), event.getEventTime());
+        return handle;
+    }
+
+    /**
+     * 开始记录手指的一条笔迹，该手指上一笔若已被取消，其采样点随之丢弃
+     * @param x 落笔点（白板坐标）
+     * @param y 落笔点（白板坐标）
+     */
+    void beginStroke(int pointerId, int handle, float x, float y, float pressure, long time) {
+        if (pointerId < 0 || pointerId > PointerTracker.MAX_POINTER_ID) return;
+        StrokeBuilder builder = builders[pointerId];
+        if (builder == null) {
+            builder = builders[pointerId] = new StrokeBuilder();
+        }
+        builder.reset();
+        builder.add(x, y, pressure, time);
+        builderHandles[pointerId] = handle;
     }
 
     @Override
-    public void movePath(Path path, MotionEvent event, float preX, float preY, float curX, float curY) {
+    public void movePath(int handle, MotionEvent event, float preX, float preY, float curX, float curY) {
+        moveWorldPath(event.getPointerId(0), handle, DrawPathUtils.locateX(curX, whiteBoard),
+                DrawPathUtils.locateY(curY, whiteBoard), event.getPressure(), event.getEventTime());
+        whiteBoard.getRuntimeWhiteBoard().requestRender();
+    }
+
+    /**
+     * 绘制曲线并记录采样点，当前坐标已换算为白板坐标
+     * 只将采样点交给绘制层而不请求绘制，由调用方在整批采样点处理完后调用requestRender
+     * @param pointerId 书写该笔迹的手指的PointerId
+     * @param handle downPath返回的句柄
+     * @param pressure 当前点的压力
+     * @param time 当前点的采样时间
+     */
+    public void moveWorldPath(int pointerId, int handle, float x, float y, float pressure, long time) {
         // 绘制曲线
-        DrawPathUtils.onMovePath(path, whiteBoard, preX, preY, curX, curY);
+        liveSamples.queueSample(handle, x, y, pressure, time);
+        StrokeBuilder builder = builderOf(pointerId, handle);
+        if (builder != null) {
+            builder.add(x, y, pressure, time);
+        }
     }
 
     @Override
-    public void upPath(Path path, MotionEvent event, float x, float y) {
-        // 将在绘制层的笔迹存到储存层
-        PathView newPath = new PathView(whiteBoard.getContext());
-        newPath.setPath(path);
-        newPath.setPaint(new Paint(WritePen.getInstance()));
-        whiteBoard.getCacheWhiteBoard().addView(newPath);
+    public void upPath(int handle, MotionEvent event, float x, float y) {
+        // 结束预测，只有真实采样点会存入StrokeStore
+        whiteBoard.getRuntimeWhiteBoard().endPath(handle);
+        int pointerId = event.getPointerId(event.getActionIndex());
+        StrokeBuilder builder = builderOf(pointerId, handle);
+        if (builder == null) return;
+        builderHandles[pointerId] = RenderList.NO_HANDLE;
+        if (!whiteBoard.getRuntimeWhiteBoard().hasPath(handle)) return;
+        // 将采样点存入StrokeStore，在储存层显示
+        StrokeStore store = whiteBoard.getCacheWhiteBoard().getScene().getStrokeStore();
+        int id = store.add(builder, store.styleOf(WritePen.getInstance()));
+        whiteBoard.getCacheWhiteBoard().addItem(new StrokeItem(store, id));
+    }
+
+    /**
+     * 查找手指正在书写handle对应笔迹时的采样点记录
+     * @return 该手指没有书写中的笔迹或正在书写的不是该笔迹时为null
+     */
+    StrokeBuilder builderOf(int pointerId, int handle) {
+        if (pointerId < 0 || pointerId > PointerTracker.MAX_POINTER_ID) return null;
+        if (handle == RenderList.NO_HANDLE || builderHandles[pointerId] != handle) return null;
+        return builders[pointerId];
     }
 
 }
@@ -1,7 +1,5 @@
 package com.robert.whiteboard_plus.model.utils;
 
-import android.graphics.Path;
-
 import com.robert.whiteboard_plus.whiteboard.WhiteBoard;
 
 public class DrawPathUtils {
@@ -15,8 +13,7 @@ public class DrawPathUtils {
      * @return 重新定位后的x坐标
      */
     public static float locateX(float x, WhiteBoard whiteBoard) {
-        return (x + whiteBoard.getDeltaX() - whiteBoard.getScaleCenterX())
-                / whiteBoard.getScaleFactor() + whiteBoard.getScaleCenterX();
+        return whiteBoard.getViewport().toWorldX(x);
     }
 
     /**
@@ -26,45 +23,52 @@ public class DrawPathUtils {
      * @return 重新定位后的y坐标
      */
     public static float locateY(float y, WhiteBoard whiteBoard) {
-        return (y + whiteBoard.getDeltaY() - whiteBoard.getScaleCenterY())
-                / whiteBoard.getScaleFactor() + whiteBoard.getScaleCenterY();
+        return whiteBoard.getViewport().toWorldY(y);
     }
 
     /**
      * 移动Path的落笔点到待修改的x，y坐标
-     * @param path 笔迹
+     * @param handle 笔迹在绘制层中的句柄
      * @param whiteBoard 白板
      * @param x 原始x坐标
      * @param y 原始y坐标
+     * @param time 落笔事件的时间，即MotionEvent.getEventTime()
      */
-    public static void onDownPath(Path path, WhiteBoard whiteBoard, float x, float y) {
+    public static void onDownPath(int handle, WhiteBoard whiteBoard, float x, float y, long time) {
         float movePointX = locateX(x, whiteBoard);
         float movePointY = locateY(y, whiteBoard);
-        path.moveTo(movePointX, movePointY);
+        whiteBoard.getRuntimeWhiteBoard().moveTo(handle, movePointX, movePointY, time);
     }
 
     /**
-     * Path连线，根据提供的x,y和其历史位置做连线
-     * @param path 笔迹
+     * Path连线，将当前位置作为采样点交给绘制层，由绘制线程与上一个采样点连线
+     * @param handle 笔迹在绘制层中的句柄
      * @param whiteBoard 白板
-     * @param preX 历史x坐标
-     * @param preY 历史y坐标
      * @param curX 当前x坐标
      * @param curY 当前y坐标
+     * @param pressure 当前点的压力
+     * @param time 当前点的采样时间
      */
-    public static void onMovePath(Path path, WhiteBoard whiteBoard, float preX, float preY, float curX, float curY) {
+    public static void onMovePath(int handle, WhiteBoard whiteBoard, float curX, float curY, float pressure, long time) {
         // 根据白板漫游缩放、偏移量修正x,y坐标
-        float correctX = locateX(curX, whiteBoard);
-        float correctY = locateY(curY, whiteBoard);
-
-        // 计算贝塞尔曲线控制点
-        float endPointX = (correctX + preX) / 2;
-        float endPointY = (correctY + preY) / 2;
+        onMoveWorldPath(handle, whiteBoard, locateX(curX, whiteBoard), locateY(curY, whiteBoard), pressure, time);
+    }
 
-        path.quadTo(preX, preY, endPointX, endPointY);
+    /**
+     * Path连线，当前坐标已换算为白板坐标
+     * @param handle 笔迹在绘制层中的句柄
+     * @param whiteBoard 白板
+     * @param correctX 当前x坐标（白板坐标）
+     * @param correctY 当前y坐标（白板坐标）
+     * @param pressure 当前点的压力
+     * @param time 当前点的采样时间
+     */
+    public static void onMoveWorldPath(int handle, WhiteBoard whiteBoard, float correctX, float correctY, float pressure, long time) {
+        // 绘制线程以上一个采样点为控制点连接贝塞尔曲线，只重绘新增的这一段
+        whiteBoard.getRuntimeWhiteBoard().addSample(handle, correctX, correctY, pressure, time);
     }
 
-    public static void onUpPath(Path path, WhiteBoard whiteBoard, float x, float y) {
+    public static void onUpPath(int handle, WhiteBoard whiteBoard, float x, float y) {
     }
 
 }
@@ -0,0 +1,126 @@
+package com.robert.whiteboard_plus.model.utils;
+
+/**
+ * 几何命中测试工具
+ * 将橡皮擦轨迹视为一串半径为r的胶囊体（线段扩张r），判断其与笔迹折线是否相交，
+ * 即两条折线之间的最短距离是否不超过r。全部计算在基本类型上完成，不分配对象
+ */
+public class HitTestUtils {
+
+    public static final String TAG = "HitTestUtils";
+
+    /**
+     * 判断两条折线的距离是否不超过radius，找到第一对相交的线段即返回
+     * @param trail 依次存放x, y的轨迹顶点，如橡皮擦轨迹
+     * @param trailCount 轨迹顶点数量，只有一个点时视为一个圆
+     * @param line 依次存放x, y的折线顶点，如展开后的笔迹
+     * @param lineCount 折线顶点数量
+     * @param radius 胶囊半径
+     */
+    public static boolean hitsPolyline(float[] trail, int trailCount, float[] line, int lineCount, float radius) {
+        if (trailCount <= 0 || lineCount <= 0) return false;
+        float radiusSq = radius * radius;
+        int trailSegments = Math.max(trailCount - 1, 1);
+        int lineSegments = Math.max(lineCount - 1, 1);
+        for (int i = 0; i < trailSegments; i++) {
+            int i1 = Math.min(i + 1, trailCount - 1);
+            float ax = trail[i * 2], ay = trail[i * 2 + 1];
+            float bx = trail[i1 * 2], by = trail[i1 * 2 + 1];
+            // 胶囊的外接矩形
+            float left = Math.min(ax, bx) - radius, right = Math.max(ax, bx) + radius;
+            float top = Math.min(ay, by) - radius, bottom = Math.max(ay, by) + radius;
+            for (int j = 0; j < lineSegments; j++) {
+                int j1 = Math.min(j + 1, lineCount - 1);
+                float cx = line[j * 2], cy = line[j * 2 + 1];
+                float dx = line[j1 * 2], dy = line[j1 * 2 + 1];
+                if (Math.max(cx, dx) < left || Math.min(cx, dx) > right
+                        || Math.max(cy, dy) < top || Math.min(cy, dy) > bottom) {
+                    continue;
+                }
+                if (segmentDistSq(ax, ay, bx, by, cx, cy, dx, dy) <= radiusSq) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 点p到折线最短距离的平方
+     * @param line 依次存放x, y的折线顶点，只有一个点时为到该点的距离
+     * @param lineCount 折线顶点数量
+     */
+    public static float polylineDistSq(float px, float py, float[] line, int lineCount) {
+        float dist = Float.MAX_VALUE;
+        int segments = Math.max(lineCount - 1, 1);
+        for (int i = 0; i < segments; i++) {
+            int i1 = Math.min(i + 1, lineCount - 1);
+            dist = Math.min(dist, pointDistSq(px, py, line[i * 2], line[i * 2 + 1], line[i1 * 2], line[i1 * 2 + 1]));
+        }
+        return dist;
+    }
+
+    /**
+     * 线段ab与线段cd最短距离的平方
+     */
+    public static float segmentDistSq(float ax, float ay, float bx, float by,
+                                      float cx, float cy, float dx, float dy) {
+        if (segmentsCross(ax, ay, bx, by, cx, cy, dx, dy)) return 0;
+        // 不相交时最短距离一定在某个端点处取得
+        float dist = pointDistSq(ax, ay, cx, cy, dx, dy);
+        dist = Math.min(dist, pointDistSq(bx, by, cx, cy, dx, dy));
+        dist = Math.min(dist, pointDistSq(cx, cy, ax, ay, bx, by));
+        dist = Math.min(dist, pointDistSq(dx, dy, ax, ay, bx, by));
+        return dist;
+    }
+
+    /**
+     * 点p到线段ab距离的平方
+     */
+    public static float pointDistSq(float px, float py, float ax, float ay, float bx, float by) {
+        float vx = bx - ax, vy = by - ay;
+        float lenSq = vx * vx + vy * vy;
+        float t = lenSq == 0 ? 0 : ((px - ax) * vx + (py - ay) * vy) / lenSq;
+        t = Math.max(0, Math.min(1, t));
+        float ex = ax + t * vx - px;
+        float ey = ay + t * vy - py;
+        return ex * ex + ey * ey;
+    }
+
+    /**
+     * 线段ab与线段cd是否严格相交（端点接触由端点距离处理）
+     */
+    public static boolean segmentsCross(float ax, float ay, float bx, float by,
+                                         float cx, float cy, float dx, float dy) {
+        float d1 = cross(cx, cy, dx, dy, ax, ay);
+        float d2 = cross(cx, cy, dx, dy, bx, by);
+        float d3 = cross(ax, ay, bx, by, cx, cy);
+        float d4 = cross(ax, ay, bx, by, dx, dy);
+        return ((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0))
+                && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0));
+    }
+
+    /**
+     * 线段与矩形是否相交（分离轴）：外接矩形相交，且矩形四个角不全在线段所在直线的同一侧
+     */
+    public static boolean segmentIntersectsRect(float x0, float y0, float x1, float y1,
+                                                float left, float top, float right, float bottom) {
+        if (Math.max(x0, x1) < left || Math.min(x0, x1) > right
+                || Math.max(y0, y1) < top || Math.min(y0, y1) > bottom) {
+            return false;
+        }
+        float dx = x1 - x0, dy = y1 - y0;
+        float c0 = dx * (top - y0) - dy * (left - x0);
+        float c1 = dx * (top - y0) - dy * (right - x0);
+        float c2 = dx * (bottom - y0) - dy * (left - x0);
+        float c3 = dx * (bottom - y0) - dy * (right - x0);
+        return !((c0 > 0 && c1 > 0 && c2 > 0 && c3 > 0) || (c0 < 0 && c1 < 0 && c2 < 0 && c3 < 0));
+    }
+
+    /**
+     * 向量ab与向量ap的叉积，表示p在直线ab的哪一侧
+     */
+    private static float cross(float ax, float ay, float bx, float by, float px, float py) {
+        return (bx - ax) * (py - ay) - (by - ay) * (px - ax);
+    }
+}
@@ -0,0 +1,192 @@
+package com.robert.whiteboard_plus.model.utils;
+
+import android.graphics.Path;
+import android.graphics.RectF;
+
+/**
+ * 圈选多边形
+ * 圈选路径只展开一次为闭合多边形，并按y坐标将各条边分配到若干水平条带中（边表），
+ * 判断一个点时只需检查其所在条带内的边，以非零环绕数判断是否在圈选区域内（与Path默认的填充规则一致），
+ * 判断一条线段时只需检查其y范围覆盖的条带内的边
+ */
+public class LassoPolygon {
+
+    public static final String TAG = "LassoPolygon";
+
+    // 展开圈选路径的精度（白板坐标）
+    private static final float FLATTEN_TOLERANCE = 1f;
+    // 平均每个条带包含的边数
+    private static final int EDGES_PER_BAND = 4;
+    private static final int MAX_BANDS = 256;
+
+    // 多边形顶点，依次存放x, y，最后一个顶点与第一个顶点相连
+    private final float[] pts;
+    private final int count;
+    // 外接矩形
+    private final RectF bounds = new RectF();
+
+    // 条带划分
+    private int bandCount;
+    private float bandHeight;
+    // 第i个条带的边为bandEdges[bandStart[i], bandStart[i + 1])，边j连接顶点j与顶点j + 1
+    private int[] bandStart;
+    private int[] bandEdges;
+
+    /**
+     * @param lasso 白板坐标下的圈选路径
+     */
+    public LassoPolygon(Path lasso) {
+        float[] approx = lasso.approximate(FLATTEN_TOLERANCE);
+        count = approx.length / 3;
+        pts = new float[count * 2];
+        for (int i = 0; i < count; i++) {
+            pts[i * 2] = approx[i * 3 + 1];
+            pts[i * 2 + 1] = approx[i * 3 + 2];
+        }
+        buildEdgeTable();
+    }
+
+    private void buildEdgeTable() {
+        if (count < 3) {
+            bandCount = 0;
+            return;
+        }
+        float left = Float.MAX_VALUE, top = Float.MAX_VALUE;
+        float right = -Float.MAX_VALUE, bottom = -Float.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            left = Math.min(left, pts[i * 2]);
+            top = Math.min(top, pts[i * 2 + 1]);
+            right = Math.max(right, pts[i * 2]);
+            bottom = Math.max(bottom, pts[i * 2 + 1]);
+        }
+        bounds.set(left, top, right, bottom);
+
+        bandCount = Math.max(1, Math.min(MAX_BANDS, count / EDGES_PER_BAND));
+        bandHeight = Math.max(bounds.height() / bandCount, 0.001f);
+
+        // 先统计每个条带的边数，再依次填入
+        bandStart = new int[bandCount + 1];
+        for (int e = 0; e < count; e++) {
+            int first = bandOf(Math.min(edgeY0(e), edgeY1(e)));
+            int last = bandOf(Math.max(edgeY0(e), edgeY1(e)));
+            for (int b = first; b <= last; b++) {
+                bandStart[b + 1]++;
+            }
+        }
+        for (int b = 0; b < bandCount; b++) {
+            bandStart[b + 1] += bandStart[b];
+        }
+        bandEdges = new int[bandStart[bandCount]];
+        int[] fill = new int[bandCount];
+        for (int e = 0; e < count; e++) {
+            int first = bandOf(Math.min(edgeY0(e), edgeY1(e)));
+            int last = bandOf(Math.max(edgeY0(e), edgeY1(e)));
+            for (int b = first; b <= last; b++) {
+                bandEdges[bandStart[b] + fill[b]++] = e;
+            }
+        }
+    }
+
+    /**
+     * 点是否在圈选区域内
+     */
+    public boolean contains(float x, float y) {
+        if (bandCount == 0 || !bounds.contains(x, y)) return false;
+        int band = bandOf(y);
+        int winding = 0;
+        for (int k = bandStart[band]; k < bandStart[band + 1]; k++) {
+            int e = bandEdges[k];
+            int next = e + 1 == count ? 0 : e + 1;
+            float x0 = pts[e * 2], y0 = pts[e * 2 + 1];
+            float x1 = pts[next * 2], y1 = pts[next * 2 + 1];
+            // 按方向累计跨过点所在水平线、且位于点一侧的边，即环绕数
+            if (y0 <= y) {
+                if (y1 > y && isLeft(x0, y0, x1, y1, x, y) > 0) winding++;
+            } else {
+                if (y1 <= y && isLeft(x0, y0, x1, y1, x, y) < 0) winding--;
+            }
+        }
+        return winding != 0;
+    }
+
+    /**
+     * 折线是否与圈选区域相交：有顶点在圈选区域内，或有线段穿过多边形的边。
+     * 快速书写时采样点间距较大，笔迹可能穿过圈选区域而没有一个点落在其中，因此还需检查线段
+     * @param line 依次存放x, y的折线顶点，如展开后的笔迹
+     * @param lineCount 折线顶点数量
+     */
+    public boolean intersectsPolyline(float[] line, int lineCount) {
+        if (bandCount == 0) return false;
+        for (int i = 0; i < lineCount; i++) {
+            if (contains(line[i * 2], line[i * 2 + 1])) return true;
+        }
+        for (int i = 0; i + 1 < lineCount; i++) {
+            float ax = line[i * 2], ay = line[i * 2 + 1];
+            float bx = line[i * 2 + 2], by = line[i * 2 + 3];
+            float minY = Math.min(ay, by), maxY = Math.max(ay, by);
+            if (maxY < bounds.top || minY > bounds.bottom
+                    || Math.max(ax, bx) < bounds.left || Math.min(ax, bx) > bounds.right) continue;
+            // 交点的y同时在线段和边的范围内，相交的边一定登记在这些条带中
+            int last = bandOf(maxY);
+            for (int band = bandOf(minY); band <= last; band++) {
+                for (int k = bandStart[band]; k < bandStart[band + 1]; k++) {
+                    int e = bandEdges[k];
+                    int next = e + 1 == count ? 0 : e + 1;
+                    if (HitTestUtils.segmentsCross(ax, ay, bx, by,
+                            pts[e * 2], pts[e * 2 + 1], pts[next * 2], pts[next * 2 + 1])) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 矩形是否与圈选区域相交：有角点在圈选区域内，或有多边形的边经过矩形
+     */
+    public boolean intersects(RectF rect) {
+        if (bandCount == 0 || !RectF.intersects(bounds, rect)) return false;
+        if (contains(rect.left, rect.top) || contains(rect.right, rect.top)
+                || contains(rect.left, rect.bottom) || contains(rect.right, rect.bottom)) {
+            return true;
+        }
+        // 包括多边形顶点在矩形内、边横穿矩形而顶点都在矩形外的情况
+        for (int e = 0; e < count; e++) {
+            int next = e + 1 == count ? 0 : e + 1;
+            if (HitTestUtils.segmentIntersectsRect(pts[e * 2], pts[e * 2 + 1], pts[next * 2], pts[next * 2 + 1],
+                    rect.left, rect.top, rect.right, rect.bottom)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 外接矩形，用于从空间索引中筛选候选元素
+     */
+    public RectF getBounds() {
+        return bounds;
+    }
+
+    private int bandOf(float y) {
+        int band = (int) ((y - bounds.top) / bandHeight);
+        return Math.max(0, Math.min(bandCount - 1, band));
+    }
+
+    private float edgeY0(int e) {
+        return pts[e * 2 + 1];
+    }
+
+    private float edgeY1(int e) {
+        int next = e + 1 == count ? 0 : e + 1;
+        return pts[next * 2 + 1];
+    }
+
+    /**
+     * 点p相对有向边ab的位置，大于0在左侧，小于0在右侧
+     */
+    private static float isLeft(float ax, float ay, float bx, float by, float px, float py) {
+        return (bx - ax) * (py - ay) - (px - ax) * (by - ay);
+    }
+}
@@ -0,0 +1,152 @@
+package com.robert.whiteboard_plus.model.utils;
+
+import java.util.Arrays;
+
+/**
+ * 以long为键的哈希表
+ * 开放寻址、线性探测，键存放在基本类型数组中，查找、插入、删除都不装箱，除扩容外不分配对象。
+ * 删除时将同一探测序列中之后的元素前移，不留删除标记。非线程安全
+ */
+public class LongHashMap<V> {
+
+    public static final String TAG = "LongHashMap";
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys;
+    // 值为null的位置为空位
+    private Object[] values;
+    private int mask;
+    private int size = 0;
+
+    public LongHashMap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize 预计的元素数量，达到前不扩容
+     */
+    public LongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize * 2 - 1, INITIAL_CAPACITY - 1)) << 1;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int index = indexOf(key);
+        return index < 0 ? null : (V) values[index];
+    }
+
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * 添加或替换元素
+     * @param value 不能为null
+     * @return 原来的值，没有时为null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) throw new IllegalArgumentException("value must not be null");
+        int i = hash(key) & mask;
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        // 装载因子不超过1/2
+        if (++size * 2 > values.length) grow();
+        return null;
+    }
+
+    /**
+     * 删除元素
+     * @return 被删除的值，没有时为null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int index = indexOf(key);
+        if (index < 0) return null;
+        V old = (V) values[index];
+        values[index] = null;
+        size--;
+        // 之后的元素若探测起点不在(空位, 当前位置]之间，前移到空位，保证查找不会提前遇到空位
+        int hole = index;
+        for (int i = (index + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+            int home = hash(keys[i]) & mask;
+            boolean between = hole <= i ? (home > hole && home <= i) : (home > hole || home <= i);
+            if (!between) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                values[i] = null;
+                hole = i;
+            }
+        }
+        return old;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 以下方法用于遍历：依次访问[0, capacity())中valueAt不为null的位置，遍历期间不能修改
+     */
+    public int capacity() {
+        return values.length;
+    }
+
+    public long keyAt(int index) {
+        return keys[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V valueAt(int index) {
+        return (V) values[index];
+    }
+
+    private int indexOf(long key) {
+        for (int i = hash(key) & mask; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) return i;
+        }
+        return -1;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        mask = values.length - 1;
+        for (int j = 0; j < oldValues.length; j++) {
+            if (oldValues[j] == null) continue;
+            int i = hash(oldKeys[j]) & mask;
+            while (values[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+
+    /**
+     * 打散键的各位，相邻的格子、瓦片坐标不会集中在同一段探测序列中
+     */
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
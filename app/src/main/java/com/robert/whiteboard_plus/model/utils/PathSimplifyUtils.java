@@ -0,0 +1,113 @@
+package com.robert.whiteboard_plus.model.utils;
+
+import android.graphics.Path;
+
+/**
+ * 笔迹简化工具
+ * 将Path展开为折线后，以Douglas-Peucker算法去掉偏差小于容差的点，用于生成缩小显示时的笔迹细节层级
+ */
+public class PathSimplifyUtils {
+
+    public static final String TAG = "PathSimplifyUtils";
+
+    /**
+     * 简化Path
+     * @param path 原始Path
+     * @param tolerance 允许的最大偏差（白板坐标）
+     * @param maxRatio 简化后的点数与展开后的点数之比超过该值时认为不值得简化
+     * @return 简化后的Path，不值得简化时返回null
+     */
+    public static Path simplify(Path path, float tolerance, float maxRatio) {
+        // 展开与简化各占一半的容差
+        float[] approx = path.approximate(tolerance / 2);
+        int count = approx.length / 3;
+        if (count < 3) return null;
+
+        // 拆出x, y坐标
+        float[] pts = new float[count * 2];
+        for (int i = 0; i < count; i++) {
+            pts[i * 2] = approx[i * 3 + 1];
+            pts[i * 2 + 1] = approx[i * 3 + 2];
+        }
+
+        boolean[] keep = new boolean[count];
+        int kept = 0;
+        // 相邻两点的路径比例相同表示两点之间是一次moveTo，按moveTo拆分为多段分别简化
+        int start = 0;
+        for (int i = 1; i <= count; i++) {
+            if (i == count || approx[i * 3] == approx[(i - 1) * 3]) {
+                kept += douglasPeucker(pts, start, i - 1, tolerance / 2, keep);
+                start = i;
+            }
+        }
+        if (kept > count * maxRatio) return null;
+
+        Path simplified = new Path();
+        simplified.incReserve(kept);
+        for (int i = 0; i < count; i++) {
+            if (!keep[i]) continue;
+            boolean contourStart = i == 0 || approx[i * 3] == approx[(i - 1) * 3];
+            if (contourStart) {
+                simplified.moveTo(pts[i * 2], pts[i * 2 + 1]);
+            } else {
+                simplified.lineTo(pts[i * 2], pts[i * 2 + 1]);
+            }
+        }
+        return simplified;
+    }
+
+    /**
+     * 对[first, last]区间内的点做Douglas-Peucker简化，以栈代替递归
+     * @return 保留的点数
+     */
+    private static int douglasPeucker(float[] pts, int first, int last, float tolerance, boolean[] keep) {
+        keep[first] = true;
+        if (last <= first) return 1;
+        keep[last] = true;
+        int kept = 2;
+
+        float toleranceSq = tolerance * tolerance;
+        int[] stack = new int[(last - first + 1) * 2];
+        int top = 0;
+        stack[top++] = first;
+        stack[top++] = last;
+        while (top > 0) {
+            int end = stack[--top];
+            int begin = stack[--top];
+            float maxDist = 0;
+            int index = -1;
+            for (int i = begin + 1; i < end; i++) {
+                float dist = segmentDistSq(pts, i, begin, end);
+                if (dist > maxDist) {
+                    maxDist = dist;
+                    index = i;
+                }
+            }
+            if (index != -1 && maxDist > toleranceSq) {
+                keep[index] = true;
+                kept++;
+                stack[top++] = begin;
+                stack[top++] = index;
+                stack[top++] = index;
+                stack[top++] = end;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * 点p到线段ab距离的平方
+     */
+    private static float segmentDistSq(float[] pts, int p, int a, int b) {
+        float px = pts[p * 2], py = pts[p * 2 + 1];
+        float ax = pts[a * 2], ay = pts[a * 2 + 1];
+        float bx = pts[b * 2], by = pts[b * 2 + 1];
+        float dx = bx - ax, dy = by - ay;
+        float lenSq = dx * dx + dy * dy;
+        float t = lenSq == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lenSq;
+        t = Math.max(0, Math.min(1, t));
+        float cx = ax + t * dx - px;
+        float cy = ay + t * dy - py;
+        return cx * cx + cy * cy;
+    }
+}
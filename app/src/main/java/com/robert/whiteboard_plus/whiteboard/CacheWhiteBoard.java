@@ -1,85 +1,133 @@
 package com.robert.whiteboard_plus.whiteboard;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.View;
-import android.widget.FrameLayout;
-import android.widget.ImageView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import com.robert.whiteboard_plus.components.pen.ErasePen;
 import com.robert.whiteboard_plus.components.pen.SelectPen;
-import com.robert.whiteboard_plus.components.movable.MovableView;
-import com.robert.whiteboard_plus.components.movable.PathView;
-import com.robert.whiteboard_plus.components.movable.SelectBoxView;
+import com.robert.whiteboard_plus.model.scene.BoardItem;
+import com.robert.whiteboard_plus.model.scene.BoardScene;
+import com.robert.whiteboard_plus.model.scene.SelectBox;
+import com.robert.whiteboard_plus.model.scene.SelectionSet;
+import com.robert.whiteboard_plus.whiteboard.render.BitmapPool;
+import com.robert.whiteboard_plus.whiteboard.render.TileCache;
+import com.robert.whiteboard_plus.whiteboard.render.TileRenderer;
+import com.robert.whiteboard_plus.whiteboard.render.ViewportTransform;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * 显示层
  * 负责储存、显示已绘制的笔迹、图片、圈选框等
+ * 全部元素保存在BoardScene中，由该View的onDraw统一绘制，不再为每条笔迹创建子View
+ * 元素先按缩放档位光栅化到瓦片中，漫游时只绘制缓存的瓦片，元素变化时只重新光栅化相交的瓦片
+ * 瓦片由TileRenderer在后台线程中光栅化，尚未完成的瓦片暂时以上一个缩放档位的瓦片代替
+ * 漫游手势进行中只对手势开始时的画面快照做矩阵变换，手指抬起后才按新的缩放档位重新绘制
  */
-public class CacheWhiteBoard extends FrameLayout {
+public class CacheWhiteBoard extends View implements TileRenderer.Callback,
+        ViewportTransform.OnViewportChangeListener {
 
     public static final String TAG = "WhiteBoardLayout";
 
-    // 橡皮擦路径
-    private PathView erasePath;
+    // 变换层位图的最大边长（像素），选中内容更大时降低分辨率
+    private static final int MAX_LAYER_SIZE = 2048;
+
+    // 白板上的全部笔迹和图片
+    private BoardScene scene;
     // 圈选路径
-    private PathView selectPath;
+    private Path selectPath;
     // 圈选框
-    private SelectBoxView selectBox;
-    // 圈选中的笔迹
-    private List<PathView> selected;
-    // 圈选中的图片
-    private List<ImageView> selectedImg;
-
-    // 位移量
-    int deltaX = 0;
-    int deltaY = 0;
-    // 缩放倍数
-    float scaleFactor = 1f;
-    // 缩放中心
-    float scaleCenterX = 0;
-    float scaleCenterY = 0;
+    private SelectBox selectBox;
+    // 圈选中的笔迹和图片
+    private SelectionSet selection;
+    // 选中内容的外接矩形（白板坐标），由各元素缓存的外接矩形增量维护
+    private final RectF selectionBounds = new RectF();
+
+    // 瓦片对象池
+    private BitmapPool bitmapPool;
+    // 瓦片缓存
+    private TileCache tileCache;
+    // 瓦片光栅化线程池
+    private TileRenderer tileRenderer;
+    private Paint tilePaint;
+    // 上一帧使用的缩放档位，及档位变化前的档位
+    private int lastBucket = Integer.MIN_VALUE;
+    private int fallbackBucket = Integer.MIN_VALUE;
+    // 绘制时使用的临时区域和列表，避免每帧分配
+    private final RectF visibleRect = new RectF();
+    private final RectF tileRect = new RectF();
+    private final RectF fallbackRect = new RectF();
+    private final List<BoardItem> tileItems = new ArrayList<>();
+    // 与可见瓦片相交的元素，每帧第一次需要光栅化瓦片时才查找
+    private final RectF cullRect = new RectF();
+    private final List<BoardItem> visibleItems = new ArrayList<>();
+    private boolean visibleItemsReady = false;
+
+    // 是否处于漫游手势预览中
+    private boolean previewing = false;
+    // 手势开始时的画面快照，手势结束后在瓦片完成前继续用于填补缺失的瓦片
+    private Bitmap previewBitmap;
+    private Canvas previewCanvas;
+    private boolean previewValid = false;
+    // 快照对应的屏幕变换的逆矩阵，将快照像素映射回白板坐标
+    private final Matrix previewInverse = new Matrix();
+    private final Matrix frameMatrix = new Matrix();
+
+    // 选中内容的变换层：移动、缩放选中内容期间，选中元素不再绘制到瓦片中，
+    // 而是预先绘制为一张位图，按累计的变换矩阵绘制，抬手时才一次性修改元素的几何
+    private boolean transforming = false;
+    private Bitmap layerBitmap;
+    // 位图对应的白板坐标区域
+    private final RectF layerRect = new RectF();
+    // 手势开始以来累计的变换（白板坐标）
+    private final Matrix layerMatrix = new Matrix();
+    private final float[] layerValues = new float[9];
+
+    // 视口变换，与白板、绘制层共用
+    private ViewportTransform viewport = new ViewportTransform();
 
     public CacheWhiteBoard(@NonNull Context context) {
         super(context);
-        setWillNotDraw(false);
         init();
     }
 
     public CacheWhiteBoard(@NonNull Context context, @Nullable AttributeSet attrs) {
         super(context, attrs);
-        setWillNotDraw(false);
         init();
     }
 
     public CacheWhiteBoard(@NonNull Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
-        setWillNotDraw(false);
         init();
     }
 
     @Override
-    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
-        // 根据子View宽高和定位绘制全部子View
-        for (int i=0; i < getChildCount(); i++) {
-            View childView = getChildAt(i);
-            MovableView movableView = (MovableView) childView;
-
-            if (movableView.getRoundHeight() == 0 || movableView.getRoundHeight() == 0) {
-                childView.layout(left, top, right, bottom);
-            } else {
-                int l = movableView.getXPos();
-                int t = movableView.getYPos();
-                childView.layout(l ,t, l + movableView.getRoundWidth(), t + movableView.getRoundHeight());
-            }
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (tileRenderer == null) {
+            tileRenderer = new TileRenderer(this, bitmapPool);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (tileRenderer != null) {
+            tileRenderer.release();
+            tileRenderer = null;
         }
     }
 
@@ -87,69 +135,489 @@ public class CacheWhiteBoard extends FrameLayout {
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
         Log.i(TAG, "重绘CacheWhiteBoard Canvas");
-        canvas.translate(-deltaX, -deltaY);
-        canvas.scale(scaleFactor, scaleFactor, scaleCenterX, scaleCenterY);
+        if (previewing && previewValid) {
+            // 手势进行中，将快照从拍摄时的变换映射到当前变换
+            frameMatrix.set(viewport.getMatrix());
+            frameMatrix.preConcat(previewInverse);
+            canvas.drawBitmap(previewBitmap, frameMatrix, tilePaint);
+            return;
+        }
+        int saveCount = canvas.save();
+        canvas.concat(viewport.getMatrix());
+        // 绘制可见区域内的瓦片
+        drawTiles(canvas);
+        // 移动、缩放中的选中内容绘制在其他元素上方
+        if (transforming) {
+            int layerCount = canvas.save();
+            canvas.concat(layerMatrix);
+            canvas.drawBitmap(layerBitmap, null, layerRect, tilePaint);
+            canvas.restoreToCount(layerCount);
+        }
+        // 圈选框绘制在最上方
+        selectBox.draw(canvas);
+        canvas.restoreToCount(saveCount);
+    }
+
+    /**
+     * 绘制与可见区域相交的瓦片，缓存中不存在的瓦片提交给后台线程光栅化
+     */
+    private void drawTiles(Canvas canvas) {
+        // 上一帧淘汰的瓦片已不在显示列表中，可以复用
+        bitmapPool.recycleReleased();
+
+        int bucket = TileCache.bucketOf(viewport.getScaleFactor());
+        if (bucket != lastBucket) {
+            fallbackBucket = lastBucket;
+            lastBucket = bucket;
+        }
+        float size = TileCache.worldTileSize(bucket);
+        // 屏幕可见区域换算为白板坐标
+        visibleRect.set(0, 0, getWidth(), getHeight());
+        viewport.toWorld(visibleRect);
+        int left = (int) Math.floor(visibleRect.left / size);
+        int top = (int) Math.floor(visibleRect.top / size);
+        int right = (int) Math.floor(visibleRect.right / size);
+        int bottom = (int) Math.floor(visibleRect.bottom / size);
+
+        // 取消已移出视口的任务
+        if (tileRenderer != null) {
+            tileRenderer.retain(bucket, left, top, right, bottom);
+        }
+
+        boolean complete = true;
+        visibleItemsReady = false;
+        for (int tileY = top; tileY <= bottom; tileY++) {
+            for (int tileX = left; tileX <= right; tileX++) {
+                TileCache.tileWorldRect(bucket, tileX, tileY, tileRect);
+                Bitmap tile = tileCache.get(bucket, tileX, tileY);
+                if (tile == null) {
+                    complete = false;
+                    requestTile(bucket, tileX, tileY);
+                    drawFallback(canvas);
+                    continue;
+                }
+                if (tileCache.isEmptyTile(tile)) continue;
+                canvas.drawBitmap(tile, null, tileRect, tilePaint);
+            }
+        }
+        // 可见瓦片全部完成，不再需要手势快照
+        if (complete) {
+            previewValid = false;
+        }
+        visibleItems.clear();
+    }
+
+    /**
+     * 提交tileRect对应瓦片的光栅化任务，优先级为瓦片中心与视口中心的距离
+     * 只在与可见瓦片相交的元素中查找，开销与可见内容成正比，与白板上的元素总数无关
+     */
+    private void requestTile(int bucket, int tileX, int tileY) {
+        if (tileRenderer == null || tileRenderer.isPending(bucket, tileX, tileY)) return;
+        if (!visibleItemsReady) {
+            // 以可见瓦片覆盖的区域裁剪出可见元素，本帧内的其他瓦片共用
+            float size = TileCache.worldTileSize(bucket);
+            cullRect.set((float) Math.floor(visibleRect.left / size) * size,
+                    (float) Math.floor(visibleRect.top / size) * size,
+                    (float) (Math.floor(visibleRect.right / size) + 1) * size,
+                    (float) (Math.floor(visibleRect.bottom / size) + 1) * size);
+            scene.query(cullRect, visibleItems);
+            visibleItemsReady = true;
+        }
+        // 在UI线程复制与瓦片相交的元素
+        for (int i = 0; i < visibleItems.size(); i++) {
+            BoardItem item = visibleItems.get(i);
+            // 变换层中的元素由变换层绘制
+            if (item.isLifted()) continue;
+            if (RectF.intersects(item.getBounds(), tileRect)) {
+                tileItems.add(item);
+            }
+        }
+        if (tileItems.isEmpty()) {
+            // 空瓦片不需要光栅化
+            tileCache.put(bucket, tileX, tileY, null);
+            return;
+        }
+        float dx = tileRect.centerX() - visibleRect.centerX();
+        float dy = tileRect.centerY() - visibleRect.centerY();
+        tileRenderer.request(bucket, tileX, tileY, tileRect, dx * dx + dy * dy,
+                tileItems.toArray(new BoardItem[0]));
+        tileItems.clear();
+    }
+
+    /**
+     * 瓦片尚未光栅化完成时，优先以手势快照代替，否则以档位变化前的瓦片拉伸后代替
+     */
+    private void drawFallback(Canvas canvas) {
+        if (previewValid) {
+            int saveCount = canvas.save();
+            canvas.clipRect(tileRect);
+            canvas.drawBitmap(previewBitmap, previewInverse, tilePaint);
+            canvas.restoreToCount(saveCount);
+            return;
+        }
+        if (fallbackBucket == Integer.MIN_VALUE) return;
+        float size = TileCache.worldTileSize(fallbackBucket);
+        int left = (int) Math.floor(tileRect.left / size);
+        int top = (int) Math.floor(tileRect.top / size);
+        int right = (int) Math.floor(tileRect.right / size);
+        int bottom = (int) Math.floor(tileRect.bottom / size);
+        int saveCount = canvas.save();
+        canvas.clipRect(tileRect);
+        for (int tileY = top; tileY <= bottom; tileY++) {
+            for (int tileX = left; tileX <= right; tileX++) {
+                Bitmap tile = tileCache.get(fallbackBucket, tileX, tileY);
+                if (tile == null || tileCache.isEmptyTile(tile)) continue;
+                TileCache.tileWorldRect(fallbackBucket, tileX, tileY, fallbackRect);
+                canvas.drawBitmap(tile, null, fallbackRect, tilePaint);
+            }
+        }
+        canvas.restoreToCount(saveCount);
+    }
+
+    /**
+     * 开始漫游手势预览，拍摄当前画面的快照
+     * 手势进行中修改位移、缩放后只需invalidate，onDraw只对快照做矩阵变换
+     */
+    public void beginGesturePreview() {
+        if (previewing || getWidth() == 0 || getHeight() == 0) return;
+        if (previewBitmap == null || previewBitmap.getWidth() != getWidth() || previewBitmap.getHeight() != getHeight()) {
+            previewBitmap = Bitmap.createBitmap(getWidth(), getHeight(), Bitmap.Config.ARGB_8888);
+        } else {
+            previewBitmap.eraseColor(Color.TRANSPARENT);
+        }
+        // 拍摄快照时缺失的瓦片不能以旧快照代替
+        previewValid = false;
+        previewCanvas.setBitmap(previewBitmap);
+        int saveCount = previewCanvas.save();
+        previewCanvas.concat(viewport.getMatrix());
+        drawTiles(previewCanvas);
+        previewCanvas.restoreToCount(saveCount);
+        previewCanvas.setBitmap(null);
+
+        previewInverse.set(viewport.getInverse());
+        previewValid = true;
+        previewing = true;
+    }
+
+    /**
+     * 结束漫游手势预览，按当前缩放档位重新绘制
+     */
+    public void endGesturePreview() {
+        if (!previewing) return;
+        previewing = false;
+        invalidate();
+    }
+
+    /**
+     * 视口变化后重绘，手势预览中只变换快照
+     */
+    @Override
+    public void onViewportChanged(ViewportTransform viewport) {
+        invalidate();
+    }
+
+    /**
+     * 设置共用的视口变换
+     */
+    public void setViewport(ViewportTransform viewport) {
+        this.viewport.removeOnViewportChangeListener(this);
+        this.viewport = viewport;
+        viewport.addOnViewportChangeListener(this);
+        invalidate();
+    }
+
+    /**
+     * 后台线程光栅化完成，在UI线程中调用
+     */
+    @Override
+    public void onTileReady(int bucket, int tileX, int tileY, Bitmap tile) {
+        tileCache.put(bucket, tileX, tileY, tile);
+        invalidate();
     }
 
     /**
      * 初始化显示层
      */
     private void init() {
-        // 初始化擦除路径
-        erasePath = new PathView(getContext());
-        erasePath.setPaint(ErasePen.getInstance());
+        scene = new BoardScene();
         // 初始化圈选路径
-        selectPath = new PathView(getContext());
-        selectPath.setPaint(SelectPen.getInstance());
+        selectPath = new Path();
         // 初始化圈选框
-        selectBox = new SelectBoxView(getContext());
+        selectBox = new SelectBox();
         selectBox.setPaint(SelectPen.getInstance());
-        // 初始圈选列表为空
-        selected = new CopyOnWriteArrayList<>();
-        selectedImg = new CopyOnWriteArrayList<>();
+        // 初始圈选集合为空
+        selection = new SelectionSet(scene);
+        // 初始化瓦片缓存，对象池最多保留一屏左右的瓦片
+        bitmapPool = new BitmapPool(TileCache.TILE_SIZE, TileCache.TILE_SIZE, 64);
+        tileCache = new TileCache(TileCache.defaultMaxBytes(), bitmapPool);
+        tilePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        previewCanvas = new Canvas();
     }
 
+    /**
+     * 添加元素到白板
+     */
+    public void addItem(BoardItem item) {
+        scene.add(item);
+        invalidateItem(item);
+    }
 
     /**
-     * Getters
+     * 从白板中移除元素
      */
-    public PathView getSelectPath() {
-        return selectPath;
+    public void removeItem(BoardItem item) {
+        if (scene.remove(item)) {
+            invalidateItem(item);
+        }
     }
 
-    public List<PathView> getSelected() {
-        return selected;
+    /**
+     * 从白板中批量移除元素
+     */
+    public void removeItems(Collection<? extends BoardItem> items) {
+        scene.removeAll(items);
+        for (BoardItem item : items) {
+            invalidateTiles(item.getBounds());
+        }
+        invalidate();
     }
 
-    public SelectBoxView getSelectBox() {
-        return selectBox;
+    /**
+     * 以若干新元素替换白板中的一个元素，新元素需位于原元素的区域内
+     */
+    public void replaceItem(BoardItem item, List<? extends BoardItem> replacements) {
+        if (scene.replace(item, replacements)) {
+            invalidateItem(item);
+        }
     }
 
-    public List<ImageView> getSelectedImg() {
-        return selectedImg;
+    /**
+     * 元素所在区域的瓦片失效并重绘，同时更新元素在空间索引中的位置
+     * 移动、缩放元素时，需在修改前后各调用一次
+     */
+    public void invalidateItem(BoardItem item) {
+        scene.update(item);
+        invalidateTiles(item.getBounds());
+        invalidate();
     }
 
     /**
-     * Setters
+     * 批量使元素所在区域的瓦片失效并重绘，同时更新元素在空间索引中的位置
      */
+    public void invalidateItems(Iterable<? extends BoardItem> items) {
+        for (BoardItem item : items) {
+            scene.update(item);
+            invalidateTiles(item.getBounds());
+        }
+        invalidate();
+    }
+
+    /**
+     * 白板坐标下区域内的瓦片失效，并取消正在光栅化的相交瓦片
+     */
+    private void invalidateTiles(RectF worldRect) {
+        // 内容已变化，手势快照失效
+        previewValid = false;
+        tileCache.invalidate(worldRect);
+        if (tileRenderer != null) {
+            tileRenderer.cancel(worldRect);
+        }
+    }
+
+    /**
+     * 清空白板上的全部元素
+     */
+    public void clearItems() {
+        scene.clear();
+        previewValid = false;
+        tileCache.clear();
+        if (tileRenderer != null) {
+            tileRenderer.cancelAll();
+        }
+        selectBox.setVisible(false);
+        invalidate();
+    }
+
+    /**
+     * 显示圈选框
+     */
+    public void showSelectBox() {
+        selectBox.setVisible(true);
+        invalidate();
+    }
+
+    /**
+     * 隐藏圈选框
+     */
+    public void hideSelectBox() {
+        selectBox.setVisible(false);
+        invalidate();
+    }
 
-    public void setDeltaX(int deltaX) {
-        this.deltaX = deltaX;
+    /**
+     * 选中元素，并合并其外接矩形
+     */
+    public void select(BoardItem item) {
+        selection.add(item);
+        selectionBounds.union(item.getBounds());
+    }
+
+    /**
+     * 选中白板上的全部元素
+     */
+    public void selectAll() {
+        selection.selectAll();
+        updateSelectionBounds();
     }
 
-    public void setDeltaY(int deltaY) {
-        this.deltaY = deltaY;
+    /**
+     * 反选
+     */
+    public void invertSelection() {
+        selection.invert();
+        updateSelectionBounds();
     }
 
-    public void setScaleFactor(float scaleFactor) {
-        this.scaleFactor = scaleFactor;
+    /**
+     * 清空选中内容
+     */
+    public void clearSelection() {
+        selection.clear();
+        selectionBounds.setEmpty();
     }
 
-    public void setScaleCenterX(float scaleCenterX) {
-        this.scaleCenterX = scaleCenterX;
+    /**
+     * 选中内容缩放后，由各元素缓存的外接矩形重新合并
+     */
+    public void updateSelectionBounds() {
+        selectionBounds.setEmpty();
+        for (BoardItem item : selection) {
+            selectionBounds.union(item.getBounds());
+        }
     }
 
-    public void setScaleCenterY(float scaleCenterY) {
-        this.scaleCenterY = scaleCenterY;
+    /**
+     * 开始移动、缩放选中内容：将选中元素绘制到变换层位图中，并从瓦片中去掉
+     */
+    public void beginSelectionTransform() {
+        if (transforming || selectionBounds.isEmpty()) return;
+        layerRect.set(selectionBounds);
+        // 以当前显示倍数绘制，过大时降低分辨率
+        float scale = viewport.getScaleFactor();
+        float longest = Math.max(layerRect.width(), layerRect.height()) * scale;
+        if (longest > MAX_LAYER_SIZE) {
+            scale *= MAX_LAYER_SIZE / longest;
+        }
+        int width = Math.max(1, (int) Math.ceil(layerRect.width() * scale));
+        int height = Math.max(1, (int) Math.ceil(layerRect.height() * scale));
+        layerBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        Canvas layerCanvas = new Canvas(layerBitmap);
+        layerCanvas.scale(scale, scale);
+        layerCanvas.translate(-layerRect.left, -layerRect.top);
+        for (BoardItem item : selection) {
+            item.setLifted(true);
+        }
+        // 按绘制顺序绘制选中元素
+        scene.query(layerRect, tileItems);
+        for (int i = 0; i < tileItems.size(); i++) {
+            BoardItem item = tileItems.get(i);
+            if (item.isLifted()) {
+                item.draw(layerCanvas, scale);
+            }
+        }
+        tileItems.clear();
+
+        layerMatrix.reset();
+        transforming = true;
+        // 选中元素所在的瓦片去掉选中内容后重新光栅化
+        invalidateTiles(layerRect);
+        invalidate();
+    }
+
+    /**
+     * 平移变换层
+     */
+    public void translateSelection(float dx, float dy) {
+        if (!transforming) return;
+        layerMatrix.postTranslate(dx, dy);
+        invalidate();
+    }
+
+    /**
+     * 以(px, py)为中心缩放变换层
+     */
+    public void scaleSelection(float scale, float px, float py) {
+        if (!transforming) return;
+        layerMatrix.postScale(scale, scale, px, py);
+        invalidate();
+    }
+
+    /**
+     * 结束移动、缩放选中内容：将累计的变换一次性提交到选中元素，元素重新绘制到瓦片中
+     */
+    public void commitSelectionTransform() {
+        if (!transforming) return;
+        transforming = false;
+        // 只有平移时直接平移元素，保留已生成的Path和细节层级
+        layerMatrix.getValues(layerValues);
+        boolean translateOnly = layerValues[Matrix.MSCALE_X] == 1 && layerValues[Matrix.MSCALE_Y] == 1
+                && layerValues[Matrix.MSKEW_X] == 0 && layerValues[Matrix.MSKEW_Y] == 0;
+        float dx = layerValues[Matrix.MTRANS_X];
+        float dy = layerValues[Matrix.MTRANS_Y];
+        for (BoardItem item : selection) {
+            commitTransform(item, translateOnly, dx, dy);
+        }
+        // 更新空间索引，新位置的瓦片失效
+        invalidateItems(selection);
+        invalidateTiles(layerRect);
+
+        if (translateOnly) {
+            selectionBounds.offset(dx, dy);
+        } else {
+            updateSelectionBounds();
+        }
+
+        layerBitmap.recycle();
+        layerBitmap = null;
+        invalidate();
+    }
+
+    private void commitTransform(BoardItem item, boolean translateOnly, float dx, float dy) {
+        if (translateOnly) {
+            if (dx != 0 || dy != 0) item.offset(dx, dy);
+        } else {
+            item.transform(layerMatrix);
+        }
+        item.setLifted(false);
+    }
+
+    /**
+     * Getters
+     */
+    public BoardScene getScene() {
+        return scene;
+    }
+
+    public Path getSelectPath() {
+        return selectPath;
+    }
+
+    public SelectionSet getSelection() {
+        return selection;
+    }
+
+    public SelectBox getSelectBox() {
+        return selectBox;
+    }
+
+    public RectF getSelectionBounds() {
+        return selectionBounds;
+    }
+
+    /**
+     * Setters
+     */
+    public void setSelectPath(Path selectPath) {
+        this.selectPath = selectPath;
     }
 }
@@ -3,46 +3,66 @@ package com.robert.whiteboard_plus.whiteboard;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.PixelFormat;
 import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import android.graphics.RectF;
 import android.util.AttributeSet;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
 
 import androidx.annotation.NonNull;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import com.robert.whiteboard_plus.whiteboard.render.DirtyRegion;
+import com.robert.whiteboard_plus.whiteboard.render.LeastSquaresPredictor;
+import com.robert.whiteboard_plus.whiteboard.render.MotionPredictor;
+import com.robert.whiteboard_plus.whiteboard.render.RenderList;
+import com.robert.whiteboard_plus.whiteboard.render.RenderScheduler;
+import com.robert.whiteboard_plus.whiteboard.render.SampleRing;
+import com.robert.whiteboard_plus.whiteboard.render.SampleSink;
+import com.robert.whiteboard_plus.whiteboard.render.ViewportTransform;
 
 /**
  * 绘制层
  * 负责实时显示新绘制的路径
+ * UI线程只将采样点写入无锁的SampleRing，由绘制线程在每帧开始时取出并构建路径，
+ * 加入绘制列表的Path只由绘制线程修改。书写中的笔迹末端每帧由运动预测器延长一小段，抵消输入延迟
  */
-public class RuntimeWhiteBoard extends SurfaceView implements SurfaceHolder.Callback,Runnable {
+public class RuntimeWhiteBoard extends SurfaceView implements SurfaceHolder.Callback, RenderScheduler.Renderer,
+        ViewportTransform.OnViewportChangeListener, SampleSink {
 
     public static final String TAG = "RuntimeWhiteBoard";
 
+    // 输入重采样时，在帧时间之前多久的时刻重采样（毫秒），留出下一个采样点到达的时间
+    public static final long RESAMPLE_LATENCY_MS = 5;
+
     private SurfaceHolder mHolder;
     private Canvas mCanvas;
 
-    // 状态判断
-    private volatile boolean isDrawing;
-    // 绘制线程
-    Thread drawThread;
+    // 绘制调度，Surface重建时复用同一个绘制线程
+    private RenderScheduler renderScheduler;
+    // 绘制线程优先级
+    private int renderThreadPriority = RenderScheduler.DEFAULT_PRIORITY;
 
     // 绘制列表
-    ConcurrentHashMap<Path, Paint> toDraw;
+    private final RenderList toDraw = new RenderList();
+    // UI线程写入、绘制线程取出的采样点
+    private final SampleRing samples = new SampleRing();
+    // 自上一帧以来变化的区域
+    private final DirtyRegion dirtyRegion = new DirtyRegion();
+    // 绘制线程使用的临时区域，避免每帧分配
+    private final RectF frameDirty = new RectF();
+    private final Rect frameDirtyRect = new Rect();
+    private final Matrix frameMatrix = new Matrix();
+
+    // 是否按帧对齐的时刻重采样输入，未缓冲分发输入时开启
+    private volatile boolean inputResampling = false;
 
-    // 位移量
-    int deltaX = 0;
-    int deltaY = 0;
-    // 缩放倍数
-    float scaleFactor = 1f;
-    // 缩放中心
-    float scaleCenterX = 0;
-    float scaleCenterY = 0;
+    // 视口变换，与白板、显示层共用
+    private volatile ViewportTransform viewport = new ViewportTransform();
 
     public RuntimeWhiteBoard(Context context) {
         super(context);
@@ -59,25 +79,37 @@ public class RuntimeWhiteBoard extends SurfaceView implements SurfaceHolder.Call
         init();
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (renderScheduler == null) {
+            renderScheduler = new RenderScheduler(this, renderThreadPriority);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (renderScheduler != null) {
+            renderScheduler.release();
+            renderScheduler = null;
+        }
+    }
+
     @Override
     public void surfaceCreated(@NonNull SurfaceHolder holder) {
-        isDrawing = true;
-        drawThread = new Thread(this);
-        drawThread.start();
+        dirtyRegion.invalidateAll();
+        renderScheduler.start();
     }
 
     @Override
     public void surfaceChanged(@NonNull SurfaceHolder holder, int format, int width, int height) {
+        requestFullRender();
     }
 
     @Override
     public void surfaceDestroyed(@NonNull SurfaceHolder holder) {
-        isDrawing = false;
-        try {
-            drawThread.join();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        renderScheduler.stop();
     }
 
     /**
@@ -91,45 +123,167 @@ public class RuntimeWhiteBoard extends SurfaceView implements SurfaceHolder.Call
         this.setKeepScreenOn(true);
         setZOrderOnTop(true);
         mHolder.setFormat(PixelFormat.TRANSPARENT);
-        toDraw = new ConcurrentHashMap<>();
+        setMotionPredictor(new MotionPredictor.Factory() {
+            @Override
+            public MotionPredictor create() {
+                return new LeastSquaresPredictor();
+            }
+        });
     }
 
     /**
      * 格式化绘制层
      */
     public void clear() {
-        init();
+        removeAllPath();
     }
 
     /**
-     * 负责绘制的子线程，每隔10ms刷新
+     * 通知绘制层内容已变化，在下一帧重新绘制
+     */
+    public void requestRender() {
+        if (renderScheduler != null) {
+            renderScheduler.requestRender();
+        }
+    }
+
+    /**
+     * 通知绘制层整个Surface需要重绘
+     */
+    private void requestFullRender() {
+        dirtyRegion.invalidateAll();
+        requestRender();
+    }
+
+    /**
+     * 绘制列表中的Path落笔，由绘制线程在下一帧执行
+     * @param handle addPath返回的句柄
+     * @param x 落笔点x坐标（白板坐标）
+     * @param y 落笔点y坐标（白板坐标）
+     * @param time 落笔时间（毫秒），与之后采样点的时间同一时钟，重采样以此为第一个插值端点
+     */
+    public void moveTo(int handle, float x, float y, long time) {
+        pushSample(SampleRing.OP_DOWN, handle, x, y, 0, time);
+    }
+
+    /**
+     * 绘制列表中的Path追加一个采样点，由绘制线程连接为平滑曲线，只重绘新增的一段
+     * @param handle addPath返回的句柄
+     * @param x 采样点x坐标（白板坐标）
+     * @param y 采样点y坐标（白板坐标）
+     * @param pressure 压力
+     * @param time 采样时间（毫秒）
+     */
+    public void addSample(int handle, float x, float y, float pressure, long time) {
+        pushSample(SampleRing.OP_MOVE, handle, x, y, pressure, time);
+    }
+
+    /**
+     * 与addSample相同，但不请求绘制，用于批量写入一个MotionEvent中的全部采样点，
+     * 调用方写入后需调用requestRender，一批采样点只对应一次绘制
+     * @param handle addPath返回的句柄
      */
     @Override
-    public void run() {
-        while (isDrawing) {
-            long start = System.currentTimeMillis();
-            draw();
-            long end = System.currentTimeMillis();
-            if (end - start < 25) {
-                try {
-                    Thread.sleep(25 - (end-start));
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-            }
+    public void queueSample(int handle, float x, float y, float pressure, long time) {
+        samples.queueSample(handle, x, y, pressure, time);
+    }
+
+    /**
+     * 平移绘制列表中的Path，由绘制线程在下一帧执行
+     * @param handle addPath返回的句柄
+     */
+    public void offsetPath(int handle, float dx, float dy) {
+        pushSample(SampleRing.OP_OFFSET, handle, dx, dy, 0, 0);
+    }
+
+    /**
+     * 抬笔，之后不再预测该Path，已显示的预测轨迹在下一帧被清除
+     * @param handle addPath返回的句柄
+     */
+    public void endPath(int handle) {
+        pushSample(SampleRing.OP_UP, handle, 0, 0, 0, 0);
+    }
+
+    /**
+     * 设置书写中笔迹使用的运动预测器，之后落笔的笔迹生效
+     * @param factory 为null时不预测
+     */
+    public void setMotionPredictor(MotionPredictor.Factory factory) {
+        toDraw.setPredictorFactory(factory);
+    }
+
+    /**
+     * 设置是否按帧对齐的时刻重采样输入
+     * 开启后每帧只绘制到帧时间前RESAMPLE_LATENCY_MS的位置，两个采样点之间按时间插值，
+     * 采样点不再随到达时间忽快忽慢地出现，更晚的采样点留到之后的帧
+     */
+    public void setInputResampling(boolean inputResampling) {
+        this.inputResampling = inputResampling;
+        requestRender();
+    }
+
+    /**
+     * 写入采样点并请求绘制，只在UI线程调用
+     * 绘制线程长时间阻塞导致缓冲区写满时丢弃OP_MOVE采样点，路径变得粗糙；
+     * 落笔、平移、抬笔不会丢弃，在绘制线程恢复后按顺序执行
+     */
+    private void pushSample(int op, int handle, float x, float y, float pressure, long time) {
+        if (handle == RenderList.NO_HANDLE) return;
+        samples.offer(op, handle, x, y, pressure, time);
+        requestRender();
+    }
+
+    /**
+     * 设置绘制线程优先级
+     * @param priority android.os.Process中定义的线程优先级
+     */
+    public void setRenderThreadPriority(int priority) {
+        this.renderThreadPriority = priority;
+        if (renderScheduler != null) {
+            renderScheduler.setThreadPriority(priority);
         }
     }
 
     /**
-     * 绘制方法
+     * 由RenderScheduler在垂直同步信号到来且内容有变化时调用
      */
-    private void draw() {
+    @Override
+    public void onRenderFrame(long frameTimeNanos) {
+        draw(frameTimeNanos);
+    }
+
+    /**
+     * 绘制方法，先将新的采样点追加到路径上并重建笔尖轨迹，再只锁定并重绘自上一帧以来变化的区域
+     * @param frameTimeNanos 垂直同步信号的时间，与MotionEvent的采样时间同为系统启动后的单调时钟
+     */
+    private void draw(long frameTimeNanos) {
+        long frameMillis = frameTimeNanos / 1000000;
+        long resampleTime = inputResampling ? frameMillis - RESAMPLE_LATENCY_MS : RenderList.NO_RESAMPLING;
+        toDraw.applySamples(samples, resampleTime, dirtyRegion);
+        // 仍有笔尖轨迹或留到之后的采样点时继续绘制下一帧，笔停下后预测失效，预测轨迹随之收回
+        if (toDraw.updateTips(resampleTime, frameMillis, dirtyRegion) || !samples.isEmpty()) {
+            requestRender();
+        }
+        boolean full = dirtyRegion.drain(frameDirty);
+        if (!full && frameDirty.isEmpty()) return;
+        viewport.getMatrix(frameMatrix);
+
         // 在Canvas上绘制
         try {
-            mCanvas = mHolder.lockCanvas();
-            mCanvas.translate(-deltaX, -deltaY);
-            mCanvas.scale(scaleFactor, scaleFactor, scaleCenterX, scaleCenterY);
+            if (full) {
+                mCanvas = mHolder.lockCanvas();
+            } else {
+                // 将白板坐标下的脏区域换算为屏幕坐标
+                frameMatrix.mapRect(frameDirty);
+                frameDirty.roundOut(frameDirtyRect);
+                if (!frameDirtyRect.intersect(0, 0, getWidth(), getHeight())) return;
+                // lockCanvas会将Canvas裁剪到脏区域，区域外保留上一帧内容
+                mCanvas = mHolder.lockCanvas(frameDirtyRect);
+            }
+            // Surface不可用
+            if (mCanvas == null) return;
             mCanvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+            mCanvas.concat(frameMatrix);
             // 绘制笔迹
             drawAllPath();
         } catch (Exception e) {
@@ -137,71 +291,96 @@ public class RuntimeWhiteBoard extends SurfaceView implements SurfaceHolder.Call
         } finally {
             if (mCanvas!=null) {
                 mHolder.unlockCanvasAndPost(mCanvas);
+                mCanvas = null;
             }
         }
     }
 
     /**
-     * 添加Path及其绘制所用的Paint到待绘制列表中
+     * 添加Path及其绘制所用的Paint到笔迹层末尾，之后该Path归绘制线程所有，调用方不应再修改
      * @param path 要绘制的Path
      * @param paint 该Path绘制所用的Paint
+     * @return 该Path在绘制列表中的句柄
      */
-    public void addPath(Path path, Paint paint) {
-        toDraw.put(path, paint);
+    public int addPath(Path path, Paint paint) {
+        return addPath(path, paint, RenderList.LAYER_INK);
+    }
+
+    /**
+     * 添加Path及其绘制所用的Paint到指定层的末尾，层级高的内容绘制在上方，之后该Path归绘制线程所有
+     * @param path 要绘制的Path
+     * @param paint 该Path绘制所用的Paint
+     * @param layer RenderList中定义的层级
+     * @return 该Path在绘制列表中的句柄
+     */
+    public int addPath(Path path, Paint paint, int layer) {
+        int handle = toDraw.add(path, paint, layer, dirtyRegion);
+        requestRender();
+        return handle;
     }
 
     /**
      * 从待绘制列表中删除特定的Path
-     * @param path 要删除的Path
+     * @param handle addPath返回的句柄
      * @return 返回true：删除成功，返回false：该Path不存在于列表中
      */
-    public boolean removePath(Path path) {
-        if (toDraw.containsKey(path)) {
-            toDraw.remove(path);
-            return true;
-        }
-        return false;
+    public boolean removePath(int handle) {
+        if (!toDraw.remove(handle, dirtyRegion)) return false;
+        requestRender();
+        return true;
+    }
+
+    /**
+     * 句柄对应的Path是否仍在绘制列表中
+     * @param handle addPath返回的句柄
+     * @return 已被删除时返回false
+     */
+    public boolean hasPath(int handle) {
+        return toDraw.contains(handle);
     }
 
     /**
      * 清空待绘制列表
      */
     public void removeAllPath() {
-        toDraw.clear();
+        toDraw.clear(dirtyRegion);
+        requestRender();
     }
 
     /**
-     * 绘制全部Path
+     * 按层级和加入顺序绘制与脏区域相交的Path
      */
     private void drawAllPath() {
-        for (Map.Entry<Path, Paint> entry : toDraw.entrySet()) {
-            Path path = entry.getKey();
-            Paint paint = entry.getValue();
+        int count = toDraw.snapshot();
+        for (int i = 0; i < count; i++) {
+            Path path = toDraw.framePath(i);
+            Paint paint = toDraw.framePaint(i);
+            RectF bounds = toDraw.frameBounds(i).getBounds();
+            float inset = RenderList.strokeInset(paint);
+            if (mCanvas.quickReject(bounds.left - inset, bounds.top - inset,
+                    bounds.right + inset, bounds.bottom + inset, Canvas.EdgeType.AA)) {
+                continue;
+            }
             mCanvas.drawPath(path, paint);
         }
     }
 
     /**
-     * SETTERS
+     * 视口变化后整个Surface需要重绘
      */
-    public void setDeltaX(int deltaX) {
-        this.deltaX = deltaX;
-    }
-
-    public void setDeltaY(int deltaY) {
-        this.deltaY = deltaY;
-    }
-
-    public void setScaleFactor(float scaleFactor) {
-        this.scaleFactor = scaleFactor;
-    }
-
-    public void setScaleCenterX(float scaleCenterX) {
-        this.scaleCenterX = scaleCenterX;
+    @Override
+    public void onViewportChanged(ViewportTransform viewport) {
+        requestFullRender();
     }
 
-    public void setScaleCenterY(float scaleCenterY) {
-        this.scaleCenterY = scaleCenterY;
+    /**
+     * 设置共用的视口变换
+     */
+    public void setViewport(ViewportTransform viewport) {
+        this.viewport.removeOnViewportChangeListener(this);
+        this.viewport = viewport;
+        viewport.addOnViewportChangeListener(this);
+        requestFullRender();
     }
 
 }
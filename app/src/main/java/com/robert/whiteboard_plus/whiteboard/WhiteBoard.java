@@ -7,6 +7,7 @@ import android.graphics.RectF;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
 import android.util.Log;
+import android.view.InputDevice;
 import android.view.MotionEvent;
 import android.widget.FrameLayout;
 
@@ -18,6 +19,7 @@ import com.robert.whiteboard_plus.R;
 import com.robert.whiteboard_plus.model.Mode;
 import com.robert.whiteboard_plus.handler.ActionHandler;
 import com.robert.whiteboard_plus.handler.EraseHandler;
+import com.robert.whiteboard_plus.handler.PointerTracker;
 import com.robert.whiteboard_plus.handler.SelectHandler;
 import com.robert.whiteboard_plus.handler.TourHandler;
 import com.robert.whiteboard_plus.handler.WriteHandler;
@@ -26,11 +28,7 @@ import com.robert.whiteboard_plus.components.buttons.listener.EraseOnClickListen
 import com.robert.whiteboard_plus.components.buttons.listener.InsertOnClickListener;
 import com.robert.whiteboard_plus.components.buttons.listener.SelectOnClickListener;
 import com.robert.whiteboard_plus.components.buttons.listener.WriteOnClickListener;
-
-import org.apache.commons.lang3.tuple.MutablePair;
-
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import com.robert.whiteboard_plus.whiteboard.render.ViewportTransform;
 
 public class WhiteBoard extends FrameLayout {
 
@@ -68,28 +66,21 @@ public class WhiteBoard extends FrameLayout {
     boolean moveSelectOngoing = false;
     // 多指书写状态
     boolean multiWriteOngoing = false;
+    // 局部擦除状态，开启后橡皮擦只擦去经过的部分，笔迹拆分为多段
+    boolean partialEraseOngoing = false;
+    // 低延迟输入模式，开启后触摸屏和手写笔的事件不再按帧合批分发，由绘制层按帧对齐的时刻重采样。
+    // 默认关闭：事件逐个分发会增加UI线程的唤醒次数和耗电，需要时通过setUnbufferedInput开启
+    boolean unbufferedInput = false;
 
-    // 位移量
-    int deltaX = 0;
-    int deltaY = 0;
-    // 缩放倍数
-    float scaleFactor = 1f;
-    // 缩放中心
-    float scaleCenterX = 0;
-    float scaleCenterY = 0;
+    // 视口变换（位移量、缩放倍数、缩放中心），绘制层与显示层共用
+    private final ViewportTransform viewport = new ViewportTransform();
 
     // 擦除路径记录
     Path erasePath = null;
     // 圈选路径记录
     Path selectPath = null;
-    // 书写路径记录
-    List<Path> writePaths = new CopyOnWriteArrayList<>();
-    List<Integer> writePathIds = new CopyOnWriteArrayList<>();
-    List<MutablePair<Float, Float>> historyPos = new CopyOnWriteArrayList<>();
-
-    // 橡皮擦圆点
-    Path eraserOutDot = null;
-    Path eraserInDot = null;
+    // 手指追踪记录（PointerId、绘制层句柄、上一个位置），各处理器共用
+    private final PointerTracker pointerTracker = new PointerTracker();
 
     private float density;
 
@@ -124,6 +115,9 @@ public class WhiteBoard extends FrameLayout {
     private void initBoards() {
         runtimeWhiteBoard = (RuntimeWhiteBoard) findViewById(R.id.runtime_whiteboard);
         cacheWhiteBoard = (CacheWhiteBoard) findViewById(R.id.cache_whiteboard);
+        runtimeWhiteBoard.setViewport(viewport);
+        cacheWhiteBoard.setViewport(viewport);
+        runtimeWhiteBoard.setInputResampling(unbufferedInput);
     }
 
     /**
@@ -139,7 +133,9 @@ public class WhiteBoard extends FrameLayout {
         // 设置按键事件监听
         writeBtn.setOnClickListener(new WriteOnClickListener(this));
         writeBtn.setOnLongClickListener(new WriteOnClickListener(this));
-        eraseBtn.setOnClickListener(new EraseOnClickListener(this));
+        EraseOnClickListener eraseOnClickListener = new EraseOnClickListener(this);
+        eraseBtn.setOnClickListener(eraseOnClickListener);
+        eraseBtn.setOnLongClickListener(eraseOnClickListener);
         selectBtn.setOnClickListener(new SelectOnClickListener(this));
         insertBtn.setOnClickListener(new InsertOnClickListener(this));
         clearBtn.setOnClickListener(new ClearOnClickListener(this));
@@ -178,6 +174,11 @@ public class WhiteBoard extends FrameLayout {
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
+        // 每次落笔时请求本次手势的事件到达即分发，不等下一帧合批
+        if (unbufferedInput && event.getActionMasked() == MotionEvent.ACTION_DOWN
+                && (event.isFromSource(InputDevice.SOURCE_TOUCHSCREEN) || event.isFromSource(InputDevice.SOURCE_STYLUS))) {
+            requestUnbufferedDispatch(event);
+        }
         // 交由责任链处理
         headHandler.handleAction(event);
         return true;
@@ -187,9 +188,7 @@ public class WhiteBoard extends FrameLayout {
      * 重置书写
      */
     public void resetWrite() {
-        getWritePaths().clear();
-        getWritePathIds().clear();
-        getHistoryPos().clear();
+        pointerTracker.clear();
         runtimeWhiteBoard.removeAllPath();
         runtimeWhiteBoard.invalidate();
     }
@@ -198,7 +197,7 @@ public class WhiteBoard extends FrameLayout {
      * 重置擦除
      */
     public void resetErase() {
-        erasePath.reset();
+        // 擦除路径已交给绘制层，随绘制层一起清除
         runtimeWhiteBoard.removeAllPath();
         runtimeWhiteBoard.invalidate();
     }
@@ -209,15 +208,13 @@ public class WhiteBoard extends FrameLayout {
     public void resetSelect() {
         // 重置选择框
         cacheWhiteBoard.getSelectBox().setRectF(new RectF());
-        cacheWhiteBoard.getSelectBox().invalidate();
         // 重置已选路径
         selectPath.reset();
-        cacheWhiteBoard.getSelected().clear();
-        cacheWhiteBoard.getSelectedImg().clear();
+        cacheWhiteBoard.clearSelection();
         // 移除选择框和选择路径
         runtimeWhiteBoard.removeAllPath();
         runtimeWhiteBoard.invalidate();
-        cacheWhiteBoard.removeView(cacheWhiteBoard.getSelectBox());
+        cacheWhiteBoard.hideSelectBox();
         setSelectOngoing(true);
     }
 
@@ -229,6 +226,12 @@ public class WhiteBoard extends FrameLayout {
     }
 
     public void setTourOngoing(boolean tourOngoing) {
+        // 漫游开始时拍摄显示层快照，手势进行中只对快照做变换，结束后重新绘制
+        if (tourOngoing && !this.tourOngoing) {
+            cacheWhiteBoard.beginGesturePreview();
+        } else if (!tourOngoing && this.tourOngoing) {
+            cacheWhiteBoard.endGesturePreview();
+        }
         this.tourOngoing = tourOngoing;
     }
 
@@ -240,34 +243,31 @@ public class WhiteBoard extends FrameLayout {
 
     public void setMultiWriteOngoing(boolean multiWriteOngoing) { this.multiWriteOngoing = multiWriteOngoing; }
 
+    public void setPartialEraseOngoing(boolean partialEraseOngoing) { this.partialEraseOngoing = partialEraseOngoing; }
+
+    public void setUnbufferedInput(boolean unbufferedInput) {
+        this.unbufferedInput = unbufferedInput;
+        runtimeWhiteBoard.setInputResampling(unbufferedInput);
+    }
+
     public void setScaleFactor(float scaleFactor) {
-        this.scaleFactor = scaleFactor;
-        runtimeWhiteBoard.setScaleFactor(scaleFactor);
-        cacheWhiteBoard.setScaleFactor(scaleFactor);
+        viewport.setScaleFactor(scaleFactor);
     }
 
     public void setScaleCenterX(float scaleCenterX) {
-        this.scaleCenterX = scaleCenterX;
-        runtimeWhiteBoard.setScaleCenterX(scaleCenterX);
-        cacheWhiteBoard.setScaleCenterX(scaleCenterX);
+        viewport.setScaleCenterX(scaleCenterX);
     }
 
     public void setScaleCenterY(float scaleCenterY) {
-        this.scaleCenterY = scaleCenterY;
-        runtimeWhiteBoard.setScaleCenterY(scaleCenterY);
-        cacheWhiteBoard.setScaleCenterY(scaleCenterY);
+        viewport.setScaleCenterY(scaleCenterY);
     }
 
     public void setDeltaX(int deltaX) {
-        this.deltaX = deltaX;
-        runtimeWhiteBoard.setDeltaX(deltaX);
-        cacheWhiteBoard.setDeltaX(deltaX);
+        viewport.setDeltaX(deltaX);
     }
 
     public void setDeltaY(int deltaY) {
-        this.deltaY = deltaY;
-        runtimeWhiteBoard.setDeltaY(deltaY);
-        cacheWhiteBoard.setDeltaY(deltaY);
+        viewport.setDeltaY(deltaY);
     }
 
     public void setMode(Mode mode) {
@@ -282,13 +282,13 @@ public class WhiteBoard extends FrameLayout {
         this.selectPath = selectPath;
     }
 
-    public void setEraserOutDot(Path eraserOutDot) { this.eraserOutDot = eraserOutDot; }
-
-    public void setEraserInDot(Path eraserInDot) { this.eraserInDot = eraserInDot; }
-
     /**
      * Getters
      */
+    public ViewportTransform getViewport() {
+        return viewport;
+    }
+
     public RuntimeWhiteBoard getRuntimeWhiteBoard() {
         return runtimeWhiteBoard;
     }
@@ -298,15 +298,15 @@ public class WhiteBoard extends FrameLayout {
     }
 
     public float getScaleFactor() {
-        return scaleFactor;
+        return viewport.getScaleFactor();
     }
 
     public int getDeltaX() {
-        return deltaX;
+        return viewport.getDeltaX();
     }
 
     public int getDeltaY() {
-        return deltaY;
+        return viewport.getDeltaY();
     }
 
     public boolean isScaleOngoing() {
@@ -323,16 +323,20 @@ public class WhiteBoard extends FrameLayout {
 
     public boolean isMultiWriteOngoing() { return multiWriteOngoing; }
 
+    public boolean isPartialEraseOngoing() { return partialEraseOngoing; }
+
+    public boolean isUnbufferedInput() { return unbufferedInput; }
+
     public Mode getMode() {
         return mode;
     }
 
     public float getScaleCenterX() {
-        return scaleCenterX;
+        return viewport.getScaleCenterX();
     }
 
     public float getScaleCenterY() {
-        return scaleCenterY;
+        return viewport.getScaleCenterY();
     }
 
     public Path getErasePath() {
@@ -343,15 +347,9 @@ public class WhiteBoard extends FrameLayout {
         return selectPath;
     }
 
-    public List<Path> getWritePaths() { return writePaths; }
-
-    public List<Integer> getWritePathIds() { return writePathIds; }
-
-    public Path getEraserOutDot() { return eraserOutDot; }
-
-    public Path getEraserInDot() { return eraserInDot; }
-
-    public List<MutablePair<Float, Float>> getHistoryPos() { return historyPos; }
+    public PointerTracker getPointerTracker() {
+        return pointerTracker;
+    }
 
     public float getDensity() {
         return density;
@@ -0,0 +1,84 @@
+package com.robert.whiteboard_plus.whiteboard.render;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 固定尺寸的Bitmap对象池，用于复用瓦片，避免光栅化时反复分配大块内存
+ *
+ * 线程模型：acquire可在任意线程调用；release只在UI线程调用。
+ * 被淘汰的瓦片可能已记录在当前帧的显示列表中，release后暂不复用，
+ * 等下一帧开始时调用recycleReleased才放回池中
+ */
+public class BitmapPool {
+
+    public static final String TAG = "BitmapPool";
+
+    private final int width;
+    private final int height;
+    // 池中最多保留的Bitmap数量
+    private final int maxSize;
+
+    private final ArrayDeque<Bitmap> free = new ArrayDeque<>();
+    // 已释放、等待下一帧放回池中的Bitmap
+    private final List<Bitmap> released = new ArrayList<>();
+
+    public BitmapPool(int width, int height, int maxSize) {
+        this.width = width;
+        this.height = height;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 取出一个已清空的Bitmap，池为空时新建
+     */
+    public Bitmap acquire() {
+        Bitmap bitmap;
+        synchronized (free) {
+            bitmap = free.poll();
+        }
+        if (bitmap == null) {
+            return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        }
+        bitmap.eraseColor(Color.TRANSPARENT);
+        return bitmap;
+    }
+
+    /**
+     * 释放不再使用的Bitmap，下一帧才可被复用
+     */
+    public void release(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) return;
+        released.add(bitmap);
+    }
+
+    /**
+     * 将上一帧之前释放的Bitmap放回池中，在每帧绘制开始时调用
+     */
+    public void recycleReleased() {
+        if (released.isEmpty()) return;
+        synchronized (free) {
+            for (int i = 0; i < released.size(); i++) {
+                // 超出上限的交由GC回收
+                if (free.size() < maxSize) {
+                    free.add(released.get(i));
+                }
+            }
+        }
+        released.clear();
+    }
+
+    /**
+     * 清空对象池
+     */
+    public void clear() {
+        released.clear();
+        synchronized (free) {
+            free.clear();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.robert.whiteboard_plus.whiteboard.render;
+
+import android.graphics.RectF;
+
+/**
+ * 脏区域
+ * 累积两帧之间发生变化的区域（白板坐标），由UI线程写入，绘制线程取出
+ */
+public class DirtyRegion {
+
+    public static final String TAG = "DirtyRegion";
+
+    // 自上一帧以来变化的区域
+    private final RectF pending = new RectF();
+    // 是否需要重绘整个Surface
+    private boolean fullRedraw = true;
+
+    /**
+     * 合并一块变化区域
+     */
+    public synchronized void union(float left, float top, float right, float bottom) {
+        if (fullRedraw || left >= right || top >= bottom) return;
+        if (pending.isEmpty()) {
+            pending.set(left, top, right, bottom);
+        } else {
+            pending.union(left, top, right, bottom);
+        }
+    }
+
+    /**
+     * 合并一块变化区域，并向外扩展inset
+     */
+    public void union(RectF rect, float inset) {
+        union(rect.left - inset, rect.top - inset, rect.right + inset, rect.bottom + inset);
+    }
+
+    /**
+     * 标记整个Surface需要重绘，如漫游缩放、Surface重建后
+     */
+    public synchronized void invalidateAll() {
+        fullRedraw = true;
+        pending.setEmpty();
+    }
+
+    /**
+     * 取出并清空累积的变化区域
+     * @param out 用于接收变化区域
+     * @return 返回true：需要重绘整个Surface，此时out无意义
+     */
+    public synchronized boolean drain(RectF out) {
+        boolean full = fullRedraw;
+        out.set(pending);
+        pending.setEmpty();
+        fullRedraw = false;
+        return full;
+    }
+}
@@ -0,0 +1,81 @@
+package com.robert.whiteboard_plus.whiteboard.render;
+
+/**
+ * 最小二乘速度预测器
+ * 对最近一段时间内的采样点按时间做线性最小二乘拟合得到速度，从最后一个采样点出发按该速度外推。
+ * 多点拟合可以平滑触摸屏的采样抖动，只外推较短的时间以免转弯处偏离过多
+ */
+public class LeastSquaresPredictor implements MotionPredictor {
+
+    public static final String TAG = "LeastSquaresPredictor";
+
+    // 参与拟合的最多采样点数量
+    private static final int MAX_SAMPLES = 8;
+    // 参与拟合的采样点距最后一个采样点的最长时间（毫秒）
+    private static final long FIT_WINDOW_MS = 40;
+    // 最长外推时间（毫秒），超过后认为笔已停下，不再预测
+    private static final long MAX_HORIZON_MS = 50;
+
+    // 最近的采样点，循环存放
+    private final float[] xs = new float[MAX_SAMPLES];
+    private final float[] ys = new float[MAX_SAMPLES];
+    private final long[] times = new long[MAX_SAMPLES];
+    // 最后一个采样点的下标
+    private int last = -1;
+    private int count = 0;
+
+    @Override
+    public void reset() {
+        last = -1;
+        count = 0;
+    }
+
+    @Override
+    public void addSample(float x, float y, long time) {
+        if (count > 0) {
+            long latest = times[last];
+            // 时间倒退说明是新的笔迹
+            if (time < latest) {
+                reset();
+            } else if (time == latest) {
+                // 同一时刻的采样点只保留最新的位置
+                xs[last] = x;
+                ys[last] = y;
+                return;
+            }
+        }
+        last = (last + 1) % MAX_SAMPLES;
+        xs[last] = x;
+        ys[last] = y;
+        times[last] = time;
+        if (count < MAX_SAMPLES) count++;
+    }
+
+    @Override
+    public boolean predict(long time, float[] out) {
+        if (count < 2) return false;
+        long latest = times[last];
+        long horizon = time - latest;
+        if (horizon < 0 || horizon > MAX_HORIZON_MS) return false;
+
+        // 以最后一个采样点为原点拟合 x = vx * t，y = vy * t，斜率即速度
+        float sumTT = 0, sumTX = 0, sumTY = 0;
+        int used = 0;
+        for (int k = 0; k < count; k++) {
+            int i = (last - k + MAX_SAMPLES) % MAX_SAMPLES;
+            float t = times[i] - latest;
+            if (-t > FIT_WINDOW_MS) break;
+            sumTT += t * t;
+            sumTX += t * (xs[i] - xs[last]);
+            sumTY += t * (ys[i] - ys[last]);
+            used++;
+        }
+        if (used < 2 || sumTT == 0) return false;
+
+        float vx = sumTX / sumTT;
+        float vy = sumTY / sumTT;
+        out[0] = xs[last] + vx * horizon;
+        out[1] = ys[last] + vy * horizon;
+        return true;
+    }
+}
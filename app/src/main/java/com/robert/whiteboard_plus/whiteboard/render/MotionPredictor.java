@@ -0,0 +1,37 @@
+package com.robert.whiteboard_plus.whiteboard.render;
+
+/**
+ * 运动预测器
+ * 根据书写中笔迹最近的真实采样点预测之后的位置，绘制层据此在笔迹末端临时绘制一小段预测轨迹，
+ * 抵消输入到显示的延迟。每条书写中的笔迹使用一个实例，只在绘制线程中访问
+ */
+public interface MotionPredictor {
+
+    /**
+     * 创建预测器，绘制层为每条笔迹创建一个
+     */
+    interface Factory {
+        MotionPredictor create();
+    }
+
+    /**
+     * 清空已记录的采样点，开始预测新的笔迹
+     */
+    void reset();
+
+    /**
+     * 记录一个真实采样点
+     * @param x x坐标（白板坐标）
+     * @param y y坐标（白板坐标）
+     * @param time 采样时间（毫秒）
+     */
+    void addSample(float x, float y, long time);
+
+    /**
+     * 预测某一时刻的位置
+     * @param time 预测的时刻（毫秒），与采样时间使用同一时钟
+     * @param out 用于接收预测位置，依次为x, y
+     * @return 返回false：采样点不足或距最后一个采样点太久，无法预测
+     */
+    boolean predict(long time, float[] out);
+}
@@ -0,0 +1,88 @@
+package com.robert.whiteboard_plus.whiteboard.render;
+
+import android.graphics.Path;
+import android.graphics.RectF;
+
+/**
+ * 绘制层中单条Path的外接矩形
+ * 随着笔迹的追加增量更新，避免每帧调用computeBounds
+ */
+public class PathBounds {
+
+    public static final String TAG = "PathBounds";
+
+    // Path的外接矩形（不含画笔宽度）
+    final RectF bounds = new RectF();
+    // Path最后一个点的位置
+    float lastX;
+    float lastY;
+    // Path是否已有内容
+    private boolean started;
+
+    public PathBounds(Path path) {
+        reset(path);
+    }
+
+    /**
+     * 根据Path当前内容重新计算外接矩形，用于复用PathBounds对象
+     */
+    public void reset(Path path) {
+        bounds.setEmpty();
+        started = !path.isEmpty();
+        if (started) {
+            path.computeBounds(bounds, true);
+            lastX = bounds.right;
+            lastY = bounds.bottom;
+        }
+    }
+
+    /**
+     * 落笔，重新记录起点
+     */
+    public void moveTo(float x, float y) {
+        if (!started) {
+            bounds.set(x, y, x, y);
+            started = true;
+        } else {
+            bounds.union(x, y);
+        }
+        lastX = x;
+        lastY = y;
+    }
+
+    /**
+     * 追加一段直线
+     */
+    public void lineTo(float x, float y) {
+        bounds.union(x, y);
+        lastX = x;
+        lastY = y;
+    }
+
+    /**
+     * 平移整条Path
+     */
+    public void offset(float dx, float dy) {
+        bounds.offset(dx, dy);
+        lastX += dx;
+        lastY += dy;
+    }
+
+    /**
+     * 追加一段二次贝塞尔曲线，曲线落在起点、控制点、终点组成的三角形内
+     * @param segment 用于接收该段曲线的外接矩形
+     */
+    public void quadTo(float ctrlX, float ctrlY, float endX, float endY, RectF segment) {
+        segment.set(Math.min(lastX, Math.min(ctrlX, endX)), Math.min(lastY, Math.min(ctrlY, endY)),
+                Math.max(lastX, Math.max(ctrlX, endX)), Math.max(lastY, Math.max(ctrlY, endY)));
+        // 曲线可能是水平或竖直的，不能用union(RectF)合并退化矩形
+        bounds.union(segment.left, segment.top);
+        bounds.union(segment.right, segment.bottom);
+        lastX = endX;
+        lastY = endY;
+    }
+
+    public RectF getBounds() {
+        return bounds;
+    }
+}
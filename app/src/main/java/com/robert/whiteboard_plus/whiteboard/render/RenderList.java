@@ -0,0 +1,501 @@
+package com.robert.whiteboard_plus.whiteboard.render;
+
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+
+import java.util.Arrays;
+
+/**
+ * 绘制层的绘制列表
+ * 按层级（笔迹、辅助线、光标）和加入顺序保存待绘制的Path，
+ * 通过add返回的句柄以O(1)的代价删除或修改，句柄对应的条目被删除后句柄随即失效。
+ *
+ * 线程模型：只允许UI线程增删条目；Path加入列表后归绘制线程所有，UI线程不再读写，
+ * 而是将采样点写入SampleRing，由绘制线程每帧调用applySamples在锁内取出并追加到Path上。
+ * 绘制线程随后调用snapshot在锁内把列表按绘制顺序复制到预分配的数组中，之后在锁外遍历，整个过程不分配对象。
+ *
+ * 笔迹层中书写中的条目每帧由updateTips在末端重建一段笔尖轨迹，与该条目用同一画笔绘制：
+ * 开启输入重采样时先连到按帧对齐时刻插值出的位置，设置了运动预测器时再连到各个预测点。
+ * 笔尖轨迹只存在于绘制线程，新的真实采样点到来后即被替换，抬笔后丢弃
+ */
+public class RenderList {
+
+    public static final String TAG = "RenderList";
+
+    // 笔迹层，位于最底层
+    public static final int LAYER_INK = 0;
+    // 辅助线层，如橡皮擦轨迹、圈选轨迹
+    public static final int LAYER_OVERLAY = 1;
+    // 光标层，如橡皮擦圆点，位于最顶层
+    public static final int LAYER_CURSOR = 2;
+    private static final int LAYER_COUNT = 3;
+
+    // 无效句柄
+    public static final int NO_HANDLE = -1;
+
+    // 句柄低位为槽位下标，高位为槽位的版本号，槽位复用后旧句柄失效
+    private static final int SLOT_BITS = 16;
+    private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+    private static final int GENERATION_MASK = 0x7FFF;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // 不重采样，applySamples取出全部采样点
+    public static final long NO_RESAMPLING = Long.MAX_VALUE;
+
+    // 每帧预测的点数
+    private static final int PREDICTED_POINTS = 3;
+    // 预测到帧时间之后多久（毫秒），约为一帧
+    private static final long PREDICTION_HORIZON_MS = 16;
+
+    // 槽位数据
+    private Path[] paths;
+    private Paint[] paints;
+    private PathBounds[] bounds;
+    private int[] generations;
+    private int[] layers;
+    // 同一层内的双向链表，保证遍历顺序即加入顺序
+    private int[] prev;
+    private int[] next;
+    // 上一个采样点及其时间，作为下一段曲线的控制点，只由绘制线程访问
+    private float[] sampleX;
+    private float[] sampleY;
+    private long[] sampleTime;
+    // 尚未取出的下一个采样点及其时间（没有时为-1），每次applySamples时重新记录，供重采样插值
+    private float[] pendingX;
+    private float[] pendingY;
+    private long[] pendingTime;
+    // 笔尖轨迹：是否书写中的笔迹、预测器（未设置时为null）、笔尖轨迹及其外接矩形、笔尖轨迹是否可见
+    private boolean[] writing;
+    private MotionPredictor[] predictors;
+    private Path[] tipPaths;
+    private PathBounds[] tipBounds;
+    private boolean[] tipVisible;
+    // 运动预测器工厂，为null时不预测
+    private MotionPredictor.Factory predictorFactory;
+    private final float[] predicted = new float[2];
+    // 每层链表的头尾
+    private final int[] heads = new int[LAYER_COUNT];
+    private final int[] tails = new int[LAYER_COUNT];
+    // 空闲槽位链表（复用next数组）
+    private int freeHead = -1;
+    // 已使用的槽位数量上限
+    private int used = 0;
+    private int size = 0;
+
+    // 绘制线程每帧使用的快照
+    private Path[] framePaths;
+    private Paint[] framePaints;
+    private PathBounds[] frameBounds;
+
+    // applySamples期间使用的脏区域与临时矩形
+    private DirtyRegion applyDirty;
+    private final RectF segmentBounds = new RectF();
+    private final SampleRing.Consumer applier = new SampleRing.Consumer() {
+        @Override
+        public void onSample(int op, int handle, float x, float y, float pressure, long time) {
+            apply(op, handle, x, y, time);
+        }
+    };
+    private final SampleRing.Consumer pendingRecorder = new SampleRing.Consumer() {
+        @Override
+        public void onSample(int op, int handle, float x, float y, float pressure, long time) {
+            // 只记录每个条目留下的第一个采样点
+            int slot = slotOf(handle);
+            if (slot < 0 || pendingTime[slot] >= 0) return;
+            pendingX[slot] = x;
+            pendingY[slot] = y;
+            pendingTime[slot] = time;
+        }
+    };
+
+    public RenderList() {
+        paths = new Path[INITIAL_CAPACITY];
+        paints = new Paint[INITIAL_CAPACITY];
+        bounds = new PathBounds[INITIAL_CAPACITY];
+        generations = new int[INITIAL_CAPACITY];
+        layers = new int[INITIAL_CAPACITY];
+        prev = new int[INITIAL_CAPACITY];
+        next = new int[INITIAL_CAPACITY];
+        sampleX = new float[INITIAL_CAPACITY];
+        sampleY = new float[INITIAL_CAPACITY];
+        sampleTime = new long[INITIAL_CAPACITY];
+        pendingX = new float[INITIAL_CAPACITY];
+        pendingY = new float[INITIAL_CAPACITY];
+        pendingTime = new long[INITIAL_CAPACITY];
+        writing = new boolean[INITIAL_CAPACITY];
+        predictors = new MotionPredictor[INITIAL_CAPACITY];
+        tipPaths = new Path[INITIAL_CAPACITY];
+        tipBounds = new PathBounds[INITIAL_CAPACITY];
+        tipVisible = new boolean[INITIAL_CAPACITY];
+        framePaths = new Path[INITIAL_CAPACITY];
+        framePaints = new Paint[INITIAL_CAPACITY];
+        frameBounds = new PathBounds[INITIAL_CAPACITY];
+        Arrays.fill(heads, -1);
+        Arrays.fill(tails, -1);
+    }
+
+    /**
+     * 将Path加入指定层的末尾，并将其已有内容的区域合并到dirty中
+     * 加入后Path归绘制线程所有，调用方不应再修改
+     * @param path 要绘制的Path
+     * @param paint 该Path绘制所用的Paint
+     * @param layer 所在层级
+     * @return 该条目的句柄
+     */
+    public synchronized int add(Path path, Paint paint, int layer, DirtyRegion dirty) {
+        int slot;
+        if (freeHead != -1) {
+            slot = freeHead;
+            freeHead = next[slot];
+        } else {
+            if (used == paths.length) grow();
+            slot = used++;
+        }
+
+        paths[slot] = path;
+        paints[slot] = paint;
+        // 绘制线程可能仍在锁外使用上一帧快照中的旧对象，不复用
+        bounds[slot] = new PathBounds(path);
+        layers[slot] = layer;
+        dirty.union(bounds[slot].getBounds(), strokeInset(paint));
+        // 只有笔迹层有笔尖轨迹
+        writing[slot] = layer == LAYER_INK;
+        if (writing[slot] && predictorFactory != null) {
+            if (predictors[slot] == null) {
+                predictors[slot] = predictorFactory.create();
+            } else {
+                predictors[slot].reset();
+            }
+        }
+
+        // 接到该层链表尾部
+        prev[slot] = tails[layer];
+        next[slot] = -1;
+        if (tails[layer] != -1) {
+            next[tails[layer]] = slot;
+        } else {
+            heads[layer] = slot;
+        }
+        tails[layer] = slot;
+        size++;
+
+        return (generations[slot] << SLOT_BITS) | slot;
+    }
+
+    /**
+     * 删除句柄对应的条目，并将其所在区域（含画笔宽度）合并到dirty中
+     * @return 返回true：删除成功，返回false：句柄已失效
+     */
+    public synchronized boolean remove(int handle, DirtyRegion dirty) {
+        int slot = slotOf(handle);
+        if (slot < 0) return false;
+        unionSlot(slot, dirty);
+
+        int layer = layers[slot];
+        if (prev[slot] != -1) {
+            next[prev[slot]] = next[slot];
+        } else {
+            heads[layer] = next[slot];
+        }
+        if (next[slot] != -1) {
+            prev[next[slot]] = prev[slot];
+        } else {
+            tails[layer] = prev[slot];
+        }
+
+        release(slot);
+        size--;
+        return true;
+    }
+
+    /**
+     * 清空列表，并将所有条目的区域合并到dirty中，之前返回的句柄全部失效
+     */
+    public synchronized void clear(DirtyRegion dirty) {
+        for (int layer = 0; layer < LAYER_COUNT; layer++) {
+            int slot = heads[layer];
+            while (slot != -1) {
+                int n = next[slot];
+                unionSlot(slot, dirty);
+                release(slot);
+                slot = n;
+            }
+            heads[layer] = -1;
+            tails[layer] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * 绘制线程调用，取出ring中采样时间不晚于resampleTime的采样点追加到对应的Path上，并将变化区域合并到dirty中
+     * 句柄已失效（条目已被删除）的采样点直接丢弃，留到之后的帧的采样点中记下各书写中条目的第一个，供updateTips插值
+     * @param resampleTime 重采样时刻（毫秒），更晚的采样点留到之后的帧，为NO_RESAMPLING时全部取出
+     * @return 取出的采样点数量
+     */
+    public synchronized int applySamples(SampleRing ring, long resampleTime, DirtyRegion dirty) {
+        applyDirty = dirty;
+        for (int slot = heads[LAYER_INK]; slot != -1; slot = next[slot]) {
+            pendingTime[slot] = -1;
+        }
+        int count = ring.drainUntil(resampleTime, applier, resampleTime == NO_RESAMPLING ? null : pendingRecorder);
+        applyDirty = null;
+        return count;
+    }
+
+    /**
+     * 将一个采样点应用到句柄对应的Path，需持有锁
+     */
+    private void apply(int op, int handle, float x, float y, long time) {
+        int slot = slotOf(handle);
+        if (slot < 0) return;
+        Path path = paths[slot];
+        PathBounds pathBounds = bounds[slot];
+        float inset = strokeInset(paints[slot]);
+        switch (op) {
+            case SampleRing.OP_DOWN:
+                path.moveTo(x, y);
+                pathBounds.moveTo(x, y);
+                sampleX[slot] = x;
+                sampleY[slot] = y;
+                sampleTime[slot] = time;
+                applyDirty.union(x - inset, y - inset, x + inset, y + inset);
+                if (predictors[slot] != null && writing[slot]) predictors[slot].addSample(x, y, time);
+                break;
+            case SampleRing.OP_MOVE:
+                // 以上一个采样点为控制点，两点中点为终点，只将新增的一段标记为脏区域
+                float ctrlX = sampleX[slot];
+                float ctrlY = sampleY[slot];
+                float endX = (x + ctrlX) / 2;
+                float endY = (y + ctrlY) / 2;
+                path.quadTo(ctrlX, ctrlY, endX, endY);
+                pathBounds.quadTo(ctrlX, ctrlY, endX, endY, segmentBounds);
+                sampleX[slot] = x;
+                sampleY[slot] = y;
+                sampleTime[slot] = time;
+                applyDirty.union(segmentBounds, inset);
+                if (predictors[slot] != null && writing[slot]) predictors[slot].addSample(x, y, time);
+                break;
+            case SampleRing.OP_OFFSET:
+                // 原位置和新位置都需要重绘
+                applyDirty.union(pathBounds.getBounds(), inset);
+                path.offset(x, y);
+                pathBounds.offset(x, y);
+                sampleX[slot] += x;
+                sampleY[slot] += y;
+                applyDirty.union(pathBounds.getBounds(), inset);
+                break;
+            case SampleRing.OP_UP:
+                // 抬笔后丢弃笔尖轨迹
+                writing[slot] = false;
+                hideTip(slot, applyDirty);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 绘制线程在applySamples之后调用，为笔迹层中书写中的条目重建笔尖轨迹，
+     * 旧的和新的笔尖轨迹所在区域都合并到dirty中
+     * @param resampleTime 与applySamples相同的重采样时刻
+     * @param frameTimeMillis 本帧的时间（毫秒），与采样时间使用同一时钟
+     * @return 是否仍有可见的笔尖轨迹，此时需继续绘制下一帧，以便笔停下后收回预测轨迹
+     */
+    public synchronized boolean updateTips(long resampleTime, long frameTimeMillis, DirtyRegion dirty) {
+        boolean visible = false;
+        for (int slot = heads[LAYER_INK]; slot != -1; slot = next[slot]) {
+            if (!writing[slot]) continue;
+            hideTip(slot, dirty);
+
+            Path path = tipPaths[slot];
+            if (path == null) {
+                path = tipPaths[slot] = new Path();
+                tipBounds[slot] = new PathBounds(path);
+            }
+            path.rewind();
+            PathBounds pathBounds = tipBounds[slot];
+            pathBounds.reset(path);
+            // 从已绘制部分的末端经过最后一个真实采样点，连到重采样点和各个预测点
+            int count = 0;
+            if (resampleTime != NO_RESAMPLING) {
+                // 下一个采样点晚于重采样时刻，尚未取出，在两个采样点之间按时间插值
+                long nextTime = pendingTime[slot];
+                if (nextTime > sampleTime[slot] && resampleTime > sampleTime[slot]) {
+                    float f = Math.min(1f, (float) (resampleTime - sampleTime[slot]) / (nextTime - sampleTime[slot]));
+                    appendTip(slot, count++, sampleX[slot] + (pendingX[slot] - sampleX[slot]) * f,
+                            sampleY[slot] + (pendingY[slot] - sampleY[slot]) * f);
+                }
+            }
+            for (int k = 1; predictors[slot] != null && k <= PREDICTED_POINTS; k++) {
+                long time = frameTimeMillis + PREDICTION_HORIZON_MS * k / PREDICTED_POINTS;
+                if (!predictors[slot].predict(time, predicted)) break;
+                appendTip(slot, count++, predicted[0], predicted[1]);
+            }
+            if (count > 0) {
+                tipVisible[slot] = true;
+                dirty.union(pathBounds.getBounds(), strokeInset(paints[slot]));
+                visible = true;
+            }
+        }
+        return visible;
+    }
+
+    /**
+     * 笔尖轨迹追加一个点，第一个点之前先从已绘制部分的末端连到最后一个真实采样点，需持有锁
+     * @param index 该点是笔尖轨迹中的第几个点
+     */
+    private void appendTip(int slot, int index, float x, float y) {
+        Path path = tipPaths[slot];
+        PathBounds pathBounds = tipBounds[slot];
+        if (index == 0) {
+            PathBounds inkBounds = bounds[slot];
+            path.moveTo(inkBounds.lastX, inkBounds.lastY);
+            pathBounds.moveTo(inkBounds.lastX, inkBounds.lastY);
+            path.lineTo(sampleX[slot], sampleY[slot]);
+            pathBounds.lineTo(sampleX[slot], sampleY[slot]);
+        }
+        path.lineTo(x, y);
+        pathBounds.lineTo(x, y);
+    }
+
+    /**
+     * 设置运动预测器工厂，之后加入的笔迹生效，为null时不预测
+     */
+    public synchronized void setPredictorFactory(MotionPredictor.Factory factory) {
+        predictorFactory = factory;
+        // 丢弃旧类型的预测器
+        Arrays.fill(predictors, null);
+    }
+
+    /**
+     * 隐藏笔尖轨迹，并将其原来所在区域合并到dirty中，需持有锁
+     */
+    private void hideTip(int slot, DirtyRegion dirty) {
+        if (!tipVisible[slot]) return;
+        dirty.union(tipBounds[slot].getBounds(), strokeInset(paints[slot]));
+        tipVisible[slot] = false;
+    }
+
+    /**
+     * 将条目及其笔尖轨迹的区域合并到dirty中，需持有锁
+     */
+    private void unionSlot(int slot, DirtyRegion dirty) {
+        float inset = strokeInset(paints[slot]);
+        dirty.union(bounds[slot].getBounds(), inset);
+        if (tipVisible[slot]) {
+            dirty.union(tipBounds[slot].getBounds(), inset);
+        }
+    }
+
+    /**
+     * 绘制线程调用，按层级和加入顺序复制当前列表
+     * @return 快照中的条目数量，通过framePath/framePaint/frameBounds访问
+     */
+    public synchronized int snapshot() {
+        // 每个条目之后可能还有一段笔尖轨迹
+        if (framePaths.length < size * 2) {
+            int capacity = paths.length * 2;
+            framePaths = new Path[capacity];
+            framePaints = new Paint[capacity];
+            frameBounds = new PathBounds[capacity];
+        }
+        int count = 0;
+        for (int layer = 0; layer < LAYER_COUNT; layer++) {
+            for (int slot = heads[layer]; slot != -1; slot = next[slot]) {
+                framePaths[count] = paths[slot];
+                framePaints[count] = paints[slot];
+                frameBounds[count] = bounds[slot];
+                count++;
+                if (tipVisible[slot]) {
+                    framePaths[count] = tipPaths[slot];
+                    framePaints[count] = paints[slot];
+                    frameBounds[count] = tipBounds[slot];
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    public Path framePath(int index) {
+        return framePaths[index];
+    }
+
+    public Paint framePaint(int index) {
+        return framePaints[index];
+    }
+
+    public PathBounds frameBounds(int index) {
+        return frameBounds[index];
+    }
+
+    /**
+     * 句柄是否仍有效
+     */
+    public synchronized boolean contains(int handle) {
+        return slotOf(handle) >= 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 画笔宽度带来的外扩量，额外多留1个像素给抗锯齿
+     */
+    public static float strokeInset(Paint paint) {
+        return paint.getStrokeWidth() / 2 + 1;
+    }
+
+    /**
+     * 校验句柄，返回对应槽位，句柄失效时返回-1
+     */
+    private int slotOf(int handle) {
+        if (handle < 0) return -1;
+        int slot = handle & SLOT_MASK;
+        if (slot >= used || paths[slot] == null) return -1;
+        if (generations[slot] != handle >>> SLOT_BITS) return -1;
+        return slot;
+    }
+
+    /**
+     * 回收槽位，版本号加一使旧句柄失效
+     */
+    private void release(int slot) {
+        paths[slot] = null;
+        paints[slot] = null;
+        writing[slot] = false;
+        tipVisible[slot] = false;
+        generations[slot] = (generations[slot] + 1) & GENERATION_MASK;
+        next[slot] = freeHead;
+        prev[slot] = -1;
+        freeHead = slot;
+    }
+
+    private void grow() {
+        int capacity = Math.min(paths.length * 2, SLOT_MASK + 1);
+        if (capacity == paths.length) {
+            throw new IllegalStateException("绘制列表已满");
+        }
+        paths = Arrays.copyOf(paths, capacity);
+        paints = Arrays.copyOf(paints, capacity);
+        bounds = Arrays.copyOf(bounds, capacity);
+        generations = Arrays.copyOf(generations, capacity);
+        layers = Arrays.copyOf(layers, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        next = Arrays.copyOf(next, capacity);
+        sampleX = Arrays.copyOf(sampleX, capacity);
+        sampleY = Arrays.copyOf(sampleY, capacity);
+        sampleTime = Arrays.copyOf(sampleTime, capacity);
+        pendingX = Arrays.copyOf(pendingX, capacity);
+        pendingY = Arrays.copyOf(pendingY, capacity);
+        pendingTime = Arrays.copyOf(pendingTime, capacity);
+        writing = Arrays.copyOf(writing, capacity);
+        predictors = Arrays.copyOf(predictors, capacity);
+        tipPaths = Arrays.copyOf(tipPaths, capacity);
+        tipBounds = Arrays.copyOf(tipBounds, capacity);
+        tipVisible = Arrays.copyOf(tipVisible, capacity);
+    }
+}
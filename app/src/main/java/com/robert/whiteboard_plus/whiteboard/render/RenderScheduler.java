@@ -0,0 +1,140 @@
+package com.robert.whiteboard_plus.whiteboard.render;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.view.Choreographer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 绘制调度器
+ * 由Choreographer的垂直同步信号驱动绘制，只有在绘制内容发生变化时才绘制下一帧；
+ * 没有待绘制内容时不再注册帧回调，绘制线程阻塞在Looper中，不占用CPU
+ */
+public class RenderScheduler implements Choreographer.FrameCallback {
+
+    public static final String TAG = "RenderScheduler";
+
+    // 默认绘制线程优先级
+    public static final int DEFAULT_PRIORITY = Process.THREAD_PRIORITY_DISPLAY;
+
+    /**
+     * 每一帧的具体绘制实现，在绘制线程中调用
+     */
+    public interface Renderer {
+        void onRenderFrame(long frameTimeNanos);
+    }
+
+    private final Renderer renderer;
+
+    // 绘制线程，整个生命周期内只创建一次，Surface重建时复用
+    private final HandlerThread renderThread;
+    private final Handler renderHandler;
+    // 绘制线程的Choreographer，只能在绘制线程中访问
+    private Choreographer choreographer;
+
+    // Surface是否可用
+    private volatile boolean enabled = false;
+    // 每一帧在该锁内检查enabled并绘制，stop持有该锁即可确认当前帧已结束
+    private final Object frameLock = new Object();
+    // 是否有未绘制的内容
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    // 是否已注册下一帧回调
+    private final AtomicBoolean frameScheduled = new AtomicBoolean(false);
+
+    private final Runnable scheduleFrame = new Runnable() {
+        @Override
+        public void run() {
+            choreographer.postFrameCallback(RenderScheduler.this);
+        }
+    };
+
+    public RenderScheduler(Renderer renderer) {
+        this(renderer, DEFAULT_PRIORITY);
+    }
+
+    public RenderScheduler(Renderer renderer, int priority) {
+        this.renderer = renderer;
+        renderThread = new HandlerThread(TAG, priority);
+        renderThread.start();
+        renderHandler = new Handler(renderThread.getLooper());
+        // Choreographer与线程的Looper绑定，需在绘制线程中获取
+        renderHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                choreographer = Choreographer.getInstance();
+            }
+        });
+    }
+
+    /**
+     * 开始绘制，在Surface创建后调用
+     */
+    public void start() {
+        enabled = true;
+        requestRender();
+    }
+
+    /**
+     * 停止绘制，在Surface销毁时调用
+     * 阻塞直到绘制线程中正在进行的帧结束，保证返回后不再访问Surface
+     */
+    public void stop() {
+        // 取得锁时正在进行的帧已结束，之后的帧都会看到enabled为false而不再绘制
+        synchronized (frameLock) {
+            enabled = false;
+        }
+        renderHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                choreographer.removeFrameCallback(RenderScheduler.this);
+                frameScheduled.set(false);
+            }
+        });
+    }
+
+    /**
+     * 标记绘制内容已变化，在下一个垂直同步信号到来时绘制
+     * 同一帧内多次调用只会绘制一次，可在任意线程调用
+     */
+    public void requestRender() {
+        dirty.set(true);
+        if (enabled && frameScheduled.compareAndSet(false, true)) {
+            renderHandler.post(scheduleFrame);
+        }
+    }
+
+    /**
+     * 修改绘制线程优先级
+     * @param priority android.os.Process中定义的线程优先级
+     */
+    public void setThreadPriority(final int priority) {
+        renderHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(priority);
+            }
+        });
+    }
+
+    /**
+     * 释放绘制线程，在View脱离窗口后调用
+     */
+    public void release() {
+        enabled = false;
+        renderThread.quitSafely();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled.set(false);
+        synchronized (frameLock) {
+            if (!enabled) return;
+            // 本帧绘制期间产生的新内容会重新注册下一帧
+            if (dirty.getAndSet(false)) {
+                renderer.onRenderFrame(frameTimeNanos);
+            }
+        }
+    }
+}
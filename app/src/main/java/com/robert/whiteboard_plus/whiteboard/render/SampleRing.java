@@ -0,0 +1,212 @@
+package com.robert.whiteboard_plus.whiteboard.render;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 采样点环形缓冲区
+ * 单生产者（UI线程）单消费者（绘制线程），两端各自只修改自己的位置，不加锁。
+ * 每个采样点依次存放在预分配的基本类型数组中：操作类型、绘制层句柄、x、y、压力、时间，
+ * 写入和读取都不分配对象。
+ * 缓冲区写满时只丢弃OP_MOVE；落笔、平移、抬笔等控制操作暂存到加锁的溢出区，
+ * 暂存期间生产者不再写入缓冲区，消费者取空缓冲区后再按顺序取走溢出区，操作顺序不变
+ */
+public class SampleRing implements SampleSink {
+
+    public static final String TAG = "SampleRing";
+
+    // 落笔，x、y为起点
+    public static final int OP_DOWN = 0;
+    // 追加一个采样点
+    public static final int OP_MOVE = 1;
+    // 平移整条路径，x、y为位移量
+    public static final int OP_OFFSET = 2;
+    // 抬笔，之后不再预测该路径
+    public static final int OP_UP = 3;
+
+    // 默认容量，约为十指在240Hz下数十帧的采样量
+    public static final int DEFAULT_CAPACITY = 4096;
+    // drainUntil最多等待的时间（毫秒），超出时认为采样时间与帧时间不是同一时钟，不再等待
+    private static final long MAX_HOLD_MS = 100;
+
+    /**
+     * 消费采样点，在绘制线程中调用
+     */
+    public interface Consumer {
+        void onSample(int op, int handle, float x, float y, float pressure, long time);
+    }
+
+    private final int mask;
+    private final int[] ops;
+    private final int[] handles;
+    private final float[] xs;
+    private final float[] ys;
+    private final float[] pressures;
+    private final long[] times;
+
+    // 下一个写入位置，只由生产者修改
+    private final AtomicLong tail = new AtomicLong();
+    // 下一个读取位置，只由消费者修改
+    private final AtomicLong head = new AtomicLong();
+    // 生产者缓存的读取位置，只在缓冲区看似已满时重新读取
+    private long cachedHead = 0;
+
+    // 缓冲区写满后暂存的控制操作，只在持有overflowLock时访问
+    private final Object overflowLock = new Object();
+    private int[] overflowOps = new int[16];
+    private int[] overflowHandles = new int[16];
+    private float[] overflowXs = new float[16];
+    private float[] overflowYs = new float[16];
+    private long[] overflowTimes = new long[16];
+    private int overflowCount = 0;
+    // 溢出区是否有未取走的控制操作，只由生产者置为true、消费者置为false
+    private volatile boolean overflowed = false;
+
+    public SampleRing() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity 容量，向上取整为2的幂
+     */
+    public SampleRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        mask = size - 1;
+        ops = new int[size];
+        handles = new int[size];
+        xs = new float[size];
+        ys = new float[size];
+        pressures = new float[size];
+        times = new long[size];
+    }
+
+    /**
+     * 写入一个采样点，只能在生产者线程调用
+     * 缓冲区已满或溢出区尚未取空时，OP_MOVE被丢弃，控制操作暂存到溢出区
+     * @return 返回false：OP_MOVE被丢弃；控制操作总是返回true
+     */
+    public boolean offer(int op, int handle, float x, float y, float pressure, long time) {
+        if (!overflowed) {
+            long t = tail.get();
+            if (t - cachedHead > mask) {
+                cachedHead = head.get();
+            }
+            if (t - cachedHead <= mask) {
+                int i = (int) t & mask;
+                ops[i] = op;
+                handles[i] = handle;
+                xs[i] = x;
+                ys[i] = y;
+                pressures[i] = pressure;
+                times[i] = time;
+                // 先写数据再发布位置，消费者读到新位置时一定能看到完整的数据
+                tail.lazySet(t + 1);
+                return true;
+            }
+        }
+        // 采样点丢弃后路径只是变得粗糙，控制操作丢弃则会丢失落笔或一直停留在书写状态
+        if (op == OP_MOVE) return false;
+        synchronized (overflowLock) {
+            if (overflowCount == overflowOps.length) {
+                int capacity = overflowCount * 2;
+                overflowOps = Arrays.copyOf(overflowOps, capacity);
+                overflowHandles = Arrays.copyOf(overflowHandles, capacity);
+                overflowXs = Arrays.copyOf(overflowXs, capacity);
+                overflowYs = Arrays.copyOf(overflowYs, capacity);
+                overflowTimes = Arrays.copyOf(overflowTimes, capacity);
+            }
+            overflowOps[overflowCount] = op;
+            overflowHandles[overflowCount] = handle;
+            overflowXs[overflowCount] = x;
+            overflowYs[overflowCount] = y;
+            overflowTimes[overflowCount] = time;
+            overflowCount++;
+            overflowed = true;
+        }
+        return true;
+    }
+
+    /**
+     * 写入一个OP_MOVE采样点，句柄无效时忽略，只能在生产者线程调用
+     */
+    @Override
+    public void queueSample(int handle, float x, float y, float pressure, long time) {
+        if (handle == RenderList.NO_HANDLE) return;
+        offer(OP_MOVE, handle, x, y, pressure, time);
+    }
+
+    /**
+     * 依次消费当前已写入的全部采样点，只能在消费者线程调用
+     * @return 消费的采样点数量
+     */
+    public int drain(Consumer consumer) {
+        return drainUntil(Long.MAX_VALUE, consumer);
+    }
+
+    /**
+     * 按写入顺序消费采样时间不晚于limit的采样点，遇到第一个更晚的OP_MOVE即停止，
+     * 其余采样点留到下一次消费，只能在消费者线程调用
+     * @param limit 采样时间上限（毫秒）
+     * @return 消费的采样点数量
+     */
+    public int drainUntil(long limit, Consumer consumer) {
+        return drainUntil(limit, consumer, null);
+    }
+
+    /**
+     * 与drainUntil(long, Consumer)相同，停止后再将留下的OP_MOVE依次交给pending，这些采样点不被消费，
+     * 调用方据此记录各句柄的下一个采样点，整个缓冲区每次只遍历一遍，只能在消费者线程调用
+     * @param pending 接收留下的OP_MOVE，为null时不遍历
+     * @return 消费的采样点数量
+     */
+    public int drainUntil(long limit, Consumer consumer, Consumer pending) {
+        long h = head.get();
+        long t = tail.get();
+        long p = h;
+        for (; p < t; p++) {
+            int i = (int) p & mask;
+            if (ops[i] == OP_MOVE && times[i] > limit && times[i] - limit <= MAX_HOLD_MS) break;
+            consumer.onSample(ops[i], handles[i], xs[i], ys[i], pressures[i], times[i]);
+        }
+        // 读完后才释放位置，生产者不会覆盖尚未读取的数据
+        head.lazySet(p);
+        int consumed = (int) (p - h);
+        if (pending != null) {
+            // 位置尚未释放的部分，生产者不会覆盖
+            for (long q = p; q < t; q++) {
+                int i = (int) q & mask;
+                if (ops[i] == OP_MOVE) pending.onSample(ops[i], handles[i], xs[i], ys[i], pressures[i], times[i]);
+            }
+        }
+        if (p == t && overflowed) {
+            consumed += drainOverflow(p, consumer);
+        }
+        return consumed;
+    }
+
+    /**
+     * 缓冲区已取空时按顺序取走溢出区的控制操作，之后生产者恢复写入缓冲区
+     * @param p 已读取到的位置
+     * @return 取走的控制操作数量
+     */
+    private int drainOverflow(long p, Consumer consumer) {
+        synchronized (overflowLock) {
+            // 生产者在暂存第一个控制操作前可能又写入了缓冲区，这些采样点更早，需先于溢出区消费
+            if (p != tail.get()) return 0;
+            int count = overflowCount;
+            for (int i = 0; i < count; i++) {
+                consumer.onSample(overflowOps[i], overflowHandles[i], overflowXs[i], overflowYs[i], 0, overflowTimes[i]);
+            }
+            overflowCount = 0;
+            overflowed = false;
+            return count;
+        }
+    }
+
+    /**
+     * 是否没有未消费的采样点，可在任意线程调用
+     */
+    public boolean isEmpty() {
+        return head.get() == tail.get() && !overflowed;
+    }
+}
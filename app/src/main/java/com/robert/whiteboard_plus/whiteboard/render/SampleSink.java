@@ -0,0 +1,14 @@
+package com.robert.whiteboard_plus.whiteboard.render;
+
+/**
+ * 书写中笔迹采样点的去向
+ * 由SampleRing实现，绘制层转交给自己的SampleRing。不依赖Android类型，书写策略可以直接接上SampleRing
+ */
+public interface SampleSink {
+
+    /**
+     * 追加一个采样点，不请求绘制，只在UI线程调用
+     * @param handle 绘制层句柄，为RenderList.NO_HANDLE时忽略
+     */
+    void queueSample(int handle, float x, float y, float pressure, long time);
+}
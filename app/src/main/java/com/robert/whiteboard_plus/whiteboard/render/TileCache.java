@@ -0,0 +1,240 @@
+package com.robert.whiteboard_plus.whiteboard.render;
+
+import android.graphics.Bitmap;
+import android.graphics.RectF;
+
+import com.robert.whiteboard_plus.model.utils.LongHashMap;
+
+import java.util.Arrays;
+
+/**
+ * 显示层瓦片缓存
+ * 已提交的笔迹和图片按缩放档位光栅化为固定大小的瓦片，以（缩放档位，瓦片x，瓦片y）为键，
+ * 按占用内存做LRU淘汰。漫游时只需绘制缓存中的瓦片，内容变化时只让相交的瓦片失效。
+ * 键不装箱，缓存项按最近使用顺序串成双向链表并循环复用，每帧查找瓦片时不分配对象。
+ *
+ * 缩放档位：每放大一倍分为BUCKETS_PER_OCTAVE档，档位内的缩放直接拉伸瓦片，不重新光栅化。
+ * 仅在UI线程访问
+ */
+public class TileCache {
+
+    public static final String TAG = "TileCache";
+
+    // 瓦片边长（像素）
+    public static final int TILE_SIZE = 256;
+    // 每放大一倍划分的缩放档位数量
+    private static final int BUCKETS_PER_OCTAVE = 4;
+
+    private static final int BUCKET_BITS = 16;
+    private static final int TILE_BITS = 24;
+    private static final long BUCKET_MASK = (1L << BUCKET_BITS) - 1;
+    private static final long TILE_MASK = (1L << TILE_BITS) - 1;
+    // 每个缓存项本身计入的内存（缓存项对象与哈希表中的键值），空瓦片也按此计入，漫游经过的空白区域同样受内存上限约束
+    private static final int ENTRY_BYTES = 64;
+
+    /**
+     * 缓存项，按最近使用顺序串成双向链表
+     */
+    private static class Entry {
+        long key;
+        Bitmap bitmap;
+        int bytes;
+        Entry prev;
+        Entry next;
+    }
+
+    private final LongHashMap<Entry> tiles = new LongHashMap<>();
+    // 链表哨兵，head.next为最近使用的瓦片，head.prev为最久未使用的瓦片
+    private final Entry head = new Entry();
+    // 被移出的缓存项，以next串成单链表留待复用
+    private Entry spare;
+    private final int maxBytes;
+    private int bytes = 0;
+    // 缓存中出现过的缩放档位，失效时只需遍历这些档位
+    private int[] buckets = new int[8];
+    private int bucketCount = 0;
+    // 不与任何元素相交的瓦片共用该占位图，只按ENTRY_BYTES计入缓存容量，也不需要绘制
+    private final Bitmap emptyTile;
+    // 被淘汰、失效的瓦片放回对象池复用
+    private final BitmapPool bitmapPool;
+
+    /**
+     * @param maxBytes 瓦片占用内存上限
+     * @param bitmapPool 瓦片对象池
+     */
+    public TileCache(int maxBytes, BitmapPool bitmapPool) {
+        this.bitmapPool = bitmapPool;
+        this.maxBytes = maxBytes;
+        emptyTile = Bitmap.createBitmap(1, 1, Bitmap.Config.ALPHA_8);
+        head.prev = head;
+        head.next = head;
+    }
+
+    /**
+     * 默认使用进程最大可用内存的1/8
+     */
+    public static int defaultMaxBytes() {
+        return (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 8);
+    }
+
+    /**
+     * 缩放倍数对应的档位
+     */
+    public static int bucketOf(float scaleFactor) {
+        return Math.round((float) (Math.log(scaleFactor) / Math.log(2)) * BUCKETS_PER_OCTAVE);
+    }
+
+    /**
+     * 档位对应的光栅化缩放倍数
+     */
+    public static float bucketScale(int bucket) {
+        return (float) Math.pow(2, (double) bucket / BUCKETS_PER_OCTAVE);
+    }
+
+    /**
+     * 瓦片在白板坐标下的边长
+     */
+    public static float worldTileSize(int bucket) {
+        return TILE_SIZE / bucketScale(bucket);
+    }
+
+    /**
+     * 计算瓦片在白板坐标下覆盖的区域
+     */
+    public static void tileWorldRect(int bucket, int tileX, int tileY, RectF out) {
+        float size = worldTileSize(bucket);
+        out.set(tileX * size, tileY * size, (tileX + 1) * size, (tileY + 1) * size);
+    }
+
+    public Bitmap get(int bucket, int tileX, int tileY) {
+        Entry entry = tiles.get(key(bucket, tileX, tileY));
+        if (entry == null) return null;
+        // 移到链表头部
+        unlink(entry);
+        linkFirst(entry);
+        return entry.bitmap;
+    }
+
+    /**
+     * 缓存光栅化完成的瓦片
+     * @param bitmap 瓦片内容，为null表示该瓦片为空
+     */
+    public void put(int bucket, int tileX, int tileY, Bitmap bitmap) {
+        addBucket(bucket);
+        Bitmap value = bitmap == null ? emptyTile : bitmap;
+        long key = key(bucket, tileX, tileY);
+        Entry entry = tiles.get(key);
+        if (entry != null) {
+            // 替换原来的瓦片
+            bytes -= entry.bytes;
+            releaseBitmap(entry.bitmap, value);
+            unlink(entry);
+        } else {
+            entry = obtainEntry();
+            entry.key = key;
+            tiles.put(key, entry);
+        }
+        entry.bitmap = value;
+        entry.bytes = ENTRY_BYTES + (value == emptyTile ? 0 : value.getAllocationByteCount());
+        bytes += entry.bytes;
+        linkFirst(entry);
+        // 淘汰最久未使用的瓦片，直到不超过内存上限
+        while (bytes > maxBytes && head.prev != head) {
+            remove(head.prev.key);
+        }
+    }
+
+    /**
+     * 判断get返回的瓦片是否为空瓦片
+     */
+    public boolean isEmptyTile(Bitmap tile) {
+        return tile == emptyTile;
+    }
+
+    /**
+     * 使与白板坐标下的区域相交的瓦片全部失效
+     */
+    public void invalidate(RectF worldRect) {
+        if (worldRect.isEmpty()) return;
+        for (int i = 0; i < bucketCount; i++) {
+            int bucket = buckets[i];
+            float size = worldTileSize(bucket);
+            // 外扩一个瓦片像素，覆盖抗锯齿溢出的部分
+            float margin = size / TILE_SIZE;
+            int left = (int) Math.floor((worldRect.left - margin) / size);
+            int top = (int) Math.floor((worldRect.top - margin) / size);
+            int right = (int) Math.floor((worldRect.right + margin) / size);
+            int bottom = (int) Math.floor((worldRect.bottom + margin) / size);
+            for (int tileY = top; tileY <= bottom; tileY++) {
+                for (int tileX = left; tileX <= right; tileX++) {
+                    remove(key(bucket, tileX, tileY));
+                }
+            }
+        }
+    }
+
+    /**
+     * 清空全部瓦片
+     */
+    public void clear() {
+        while (head.next != head) {
+            remove(head.next.key);
+        }
+        bucketCount = 0;
+    }
+
+    /**
+     * 移出瓦片，瓦片放回对象池
+     */
+    private void remove(long key) {
+        Entry entry = tiles.remove(key);
+        if (entry == null) return;
+        unlink(entry);
+        bytes -= entry.bytes;
+        releaseBitmap(entry.bitmap, null);
+        entry.bitmap = null;
+        entry.next = spare;
+        spare = entry;
+    }
+
+    private void releaseBitmap(Bitmap oldValue, Bitmap newValue) {
+        if (oldValue != emptyTile && oldValue != newValue) {
+            bitmapPool.release(oldValue);
+        }
+    }
+
+    private Entry obtainEntry() {
+        if (spare == null) return new Entry();
+        Entry entry = spare;
+        spare = entry.next;
+        return entry;
+    }
+
+    private void linkFirst(Entry entry) {
+        entry.prev = head;
+        entry.next = head.next;
+        head.next.prev = entry;
+        head.next = entry;
+    }
+
+    private static void unlink(Entry entry) {
+        entry.prev.next = entry.next;
+        entry.next.prev = entry.prev;
+    }
+
+    private void addBucket(int bucket) {
+        for (int i = 0; i < bucketCount; i++) {
+            if (buckets[i] == bucket) return;
+        }
+        if (bucketCount == buckets.length) {
+            buckets = Arrays.copyOf(buckets, bucketCount * 2);
+        }
+        buckets[bucketCount++] = bucket;
+    }
+
+    static long key(int bucket, int tileX, int tileY) {
+        return ((bucket & BUCKET_MASK) << (TILE_BITS * 2))
+                | ((tileX & TILE_MASK) << TILE_BITS)
+                | (tileY & TILE_MASK);
+    }
+}
@@ -0,0 +1,228 @@
+package com.robert.whiteboard_plus.whiteboard.render;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.RectF;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.LongSparseArray;
+
+import com.robert.whiteboard_plus.model.scene.BoardItem;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 瓦片光栅化线程池
+ * 线程数与CPU核数相同，待光栅化的瓦片按与视口中心的距离排序，距离越近越先光栅化。
+ * 光栅化结果通过主线程Handler交回UI线程，不阻塞UI线程。
+ *
+ * 线程模型：除光栅化本身外，全部方法只在UI线程调用。
+ * 提交任务时在UI线程复制与瓦片相交的元素列表，光栅化线程绘制时读取元素的几何，
+ * 因此元素不能原地修改已交给绘制的几何，修改时需换用新的对象（见StrokeItem）。
+ * 元素被修改后，调用方通过cancel取消相交的任务：尚未开始的任务不再执行，
+ * 正在执行的任务仍会画完，其结果在交付时被丢弃
+ */
+public class TileRenderer {
+
+    public static final String TAG = "TileRenderer";
+
+    /**
+     * 瓦片光栅化完成的回调，在UI线程调用
+     */
+    public interface Callback {
+        /**
+         * @param tile 瓦片内容，瓦片内没有元素时为null
+         */
+        void onTileReady(int bucket, int tileX, int tileY, Bitmap tile);
+    }
+
+    private final Callback callback;
+    private final BitmapPool bitmapPool;
+    private final ThreadPoolExecutor executor;
+    private final Handler mainHandler;
+
+    // 尚未交付的任务，以TileCache的键索引
+    private final LongSparseArray<TileJob> pending = new LongSparseArray<>();
+    // 同优先级的任务按提交顺序执行
+    private long sequence = 0;
+
+    public TileRenderer(Callback callback, BitmapPool bitmapPool) {
+        this.callback = callback;
+        this.bitmapPool = bitmapPool;
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        this.executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(), new WorkerFactory());
+        // 空闲时回收线程
+        executor.allowCoreThreadTimeOut(true);
+        this.mainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * 瓦片是否已在光栅化队列中
+     */
+    public boolean isPending(int bucket, int tileX, int tileY) {
+        return pending.get(TileCache.key(bucket, tileX, tileY)) != null;
+    }
+
+    /**
+     * 提交瓦片光栅化任务
+     * @param worldRect 瓦片在白板坐标下覆盖的区域
+     * @param priority 优先级，数值越小越先执行
+     * @param items 与瓦片相交的元素，按绘制顺序排列
+     */
+    public void request(int bucket, int tileX, int tileY, RectF worldRect, float priority, BoardItem[] items) {
+        long key = TileCache.key(bucket, tileX, tileY);
+        if (pending.get(key) != null) return;
+        TileJob job = new TileJob(key, bucket, tileX, tileY, worldRect, priority, sequence++, items);
+        pending.put(key, job);
+        executor.execute(job);
+    }
+
+    /**
+     * 取消与白板坐标下的区域相交的任务，在区域内的元素被修改时调用
+     */
+    public void cancel(RectF worldRect) {
+        // 从后往前遍历，删除不影响尚未访问的位置
+        for (int i = pending.size() - 1; i >= 0; i--) {
+            TileJob job = pending.valueAt(i);
+            if (RectF.intersects(job.worldRect, worldRect)) {
+                job.cancel();
+                pending.removeAt(i);
+            }
+        }
+    }
+
+    /**
+     * 取消不在指定档位、指定瓦片范围内的任务，在视口变化后调用
+     */
+    public void retain(int bucket, int left, int top, int right, int bottom) {
+        for (int i = pending.size() - 1; i >= 0; i--) {
+            TileJob job = pending.valueAt(i);
+            if (job.bucket != bucket || job.tileX < left || job.tileX > right
+                    || job.tileY < top || job.tileY > bottom) {
+                job.cancel();
+                pending.removeAt(i);
+            }
+        }
+    }
+
+    /**
+     * 取消全部任务
+     */
+    public void cancelAll() {
+        for (int i = 0; i < pending.size(); i++) {
+            pending.valueAt(i).cancel();
+        }
+        pending.clear();
+    }
+
+    /**
+     * 释放线程池，在View脱离窗口后调用
+     */
+    public void release() {
+        cancelAll();
+        executor.shutdownNow();
+    }
+
+    /**
+     * 单个瓦片的光栅化任务
+     */
+    private class TileJob implements Runnable, Comparable<TileJob> {
+
+        final long key;
+        final int bucket;
+        final int tileX;
+        final int tileY;
+        final RectF worldRect;
+        final float priority;
+        final long order;
+        final BoardItem[] items;
+
+        volatile boolean cancelled = false;
+        Bitmap result;
+
+        TileJob(long key, int bucket, int tileX, int tileY, RectF worldRect, float priority, long order, BoardItem[] items) {
+            this.key = key;
+            this.bucket = bucket;
+            this.tileX = tileX;
+            this.tileY = tileY;
+            this.worldRect = new RectF(worldRect);
+            this.priority = priority;
+            this.order = order;
+            this.items = items;
+        }
+
+        void cancel() {
+            cancelled = true;
+            // 尚未开始的任务直接移出队列
+            executor.remove(this);
+        }
+
+        /**
+         * 在工作线程中光栅化
+         */
+        @Override
+        public void run() {
+            if (cancelled) return;
+            if (items.length > 0) {
+                Bitmap bitmap = bitmapPool.acquire();
+                Canvas canvas = new Canvas(bitmap);
+                float bucketScale = TileCache.bucketScale(bucket);
+                canvas.scale(bucketScale, bucketScale);
+                canvas.translate(-worldRect.left, -worldRect.top);
+                for (int i = 0; i < items.length && !cancelled; i++) {
+                    // 按档位的缩放倍数选择笔迹的细节层级
+                    items[i].draw(canvas, bucketScale);
+                }
+                result = bitmap;
+            }
+            mainHandler.post(deliver);
+        }
+
+        /**
+         * 在UI线程交付结果，已取消的任务丢弃结果
+         */
+        final Runnable deliver = new Runnable() {
+            @Override
+            public void run() {
+                if (cancelled) {
+                    bitmapPool.release(result);
+                    return;
+                }
+                pending.remove(key);
+                callback.onTileReady(bucket, tileX, tileY, result);
+            }
+        };
+
+        @Override
+        public int compareTo(TileJob other) {
+            int c = Float.compare(priority, other.priority);
+            return c != 0 ? c : Long.compare(order, other.order);
+        }
+    }
+
+    /**
+     * 工作线程以后台优先级运行，不与UI线程、绘制线程争抢CPU
+     */
+    private static class WorkerFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    r.run();
+                }
+            }, TAG + "-" + count.incrementAndGet());
+            return thread;
+        }
+    }
+}
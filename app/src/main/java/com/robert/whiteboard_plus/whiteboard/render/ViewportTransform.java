@@ -0,0 +1,188 @@
+package com.robert.whiteboard_plus.whiteboard.render;
+
+import android.graphics.Matrix;
+import android.graphics.RectF;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 白板视口变换
+ * 保存漫游的位移量、缩放倍数、缩放中心，以及由此得到的白板坐标到屏幕坐标的正变换矩阵和逆矩阵，
+ * 只在参数变化时重新计算。绘制层、显示层与白板共用同一个对象，保证各层的变换始终一致。
+ *
+ * 屏幕坐标 = (白板坐标 - 缩放中心) * 缩放倍数 + 缩放中心 - 位移量
+ *
+ * 线程模型：只允许UI线程修改；绘制线程通过getMatrix(Matrix)在锁内复制正变换矩阵
+ */
+public class ViewportTransform {
+
+    public static final String TAG = "ViewportTransform";
+
+    /**
+     * 视口变化监听，在UI线程调用
+     */
+    public interface OnViewportChangeListener {
+        void onViewportChanged(ViewportTransform viewport);
+    }
+
+    // 位移量
+    private int deltaX = 0;
+    private int deltaY = 0;
+    // 缩放倍数
+    private float scaleFactor = 1f;
+    // 缩放中心
+    private float scaleCenterX = 0;
+    private float scaleCenterY = 0;
+
+    // 白板坐标 -> 屏幕坐标
+    private final Matrix matrix = new Matrix();
+    // 屏幕坐标 -> 白板坐标
+    private final Matrix inverse = new Matrix();
+    // 逆变换的系数，单点换算时不经过矩阵：白板坐标 = 屏幕坐标 * inverseScale + inverseOffset
+    private float inverseScale = 1f;
+    private float inverseOffsetX = 0;
+    private float inverseOffsetY = 0;
+
+    private final List<OnViewportChangeListener> listeners = new ArrayList<>();
+
+    public void addOnViewportChangeListener(OnViewportChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeOnViewportChangeListener(OnViewportChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 屏幕x坐标换算为白板x坐标
+     */
+    public float toWorldX(float x) {
+        return x * inverseScale + inverseOffsetX;
+    }
+
+    /**
+     * 屏幕y坐标换算为白板y坐标
+     */
+    public float toWorldY(float y) {
+        return y * inverseScale + inverseOffsetY;
+    }
+
+    /**
+     * 批量将屏幕坐标换算为白板坐标
+     * @param pts 依次存放x, y的坐标数组，原地换算
+     * @param count 点的数量
+     */
+    public void toWorld(float[] pts, int count) {
+        inverse.mapPoints(pts, 0, pts, 0, count);
+    }
+
+    /**
+     * 批量将白板坐标换算为屏幕坐标
+     * @param pts 依次存放x, y的坐标数组，原地换算
+     * @param count 点的数量
+     */
+    public void toScreen(float[] pts, int count) {
+        matrix.mapPoints(pts, 0, pts, 0, count);
+    }
+
+    /**
+     * 将屏幕坐标下的矩形换算为白板坐标
+     */
+    public void toWorld(RectF rect) {
+        inverse.mapRect(rect);
+    }
+
+    /**
+     * 将白板坐标下的矩形换算为屏幕坐标
+     */
+    public void toScreen(RectF rect) {
+        matrix.mapRect(rect);
+    }
+
+    /**
+     * 重新计算变换矩阵并通知监听者
+     */
+    private void update() {
+        synchronized (matrix) {
+            matrix.setScale(scaleFactor, scaleFactor, scaleCenterX, scaleCenterY);
+            matrix.postTranslate(-deltaX, -deltaY);
+        }
+        inverseScale = 1f / scaleFactor;
+        inverseOffsetX = (deltaX - scaleCenterX) / scaleFactor + scaleCenterX;
+        inverseOffsetY = (deltaY - scaleCenterY) / scaleFactor + scaleCenterY;
+        inverse.setScale(inverseScale, inverseScale);
+        inverse.postTranslate(inverseOffsetX, inverseOffsetY);
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onViewportChanged(this);
+        }
+    }
+
+    /**
+     * 复制白板坐标到屏幕坐标的变换矩阵，可在任意线程调用
+     */
+    public void getMatrix(Matrix out) {
+        synchronized (matrix) {
+            out.set(matrix);
+        }
+    }
+
+    /**
+     * 以下Getters仅在UI线程调用，返回的矩阵不可修改
+     */
+    public Matrix getMatrix() {
+        return matrix;
+    }
+
+    public Matrix getInverse() {
+        return inverse;
+    }
+
+    public int getDeltaX() {
+        return deltaX;
+    }
+
+    public int getDeltaY() {
+        return deltaY;
+    }
+
+    public float getScaleFactor() {
+        return scaleFactor;
+    }
+
+    public float getScaleCenterX() {
+        return scaleCenterX;
+    }
+
+    public float getScaleCenterY() {
+        return scaleCenterY;
+    }
+
+    /**
+     * Setters
+     */
+    public void setDeltaX(int deltaX) {
+        this.deltaX = deltaX;
+        update();
+    }
+
+    public void setDeltaY(int deltaY) {
+        this.deltaY = deltaY;
+        update();
+    }
+
+    public void setScaleFactor(float scaleFactor) {
+        this.scaleFactor = scaleFactor;
+        update();
+    }
+
+    public void setScaleCenterX(float scaleCenterX) {
+        this.scaleCenterX = scaleCenterX;
+        update();
+    }
+
+    public void setScaleCenterY(float scaleCenterY) {
+        this.scaleCenterY = scaleCenterY;
+        update();
+    }
+}
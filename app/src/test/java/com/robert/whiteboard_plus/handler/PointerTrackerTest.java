@@ -0,0 +1,79 @@
+package com.robert.whiteboard_plus.handler;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 手指追踪记录的单元测试
+ */
+public class PointerTrackerTest {
+
+    @Test
+    public void add_indexOf_remove() {
+        PointerTracker tracker = new PointerTracker();
+        assertEquals(0, tracker.add(5, 10, 1f, 2f));
+        assertEquals(1, tracker.add(7, 11, 3f, 4f));
+        assertEquals(2, tracker.add(2, 12, 5f, 6f));
+
+        assertEquals(1, tracker.indexOf(7));
+        assertEquals(-1, tracker.indexOf(9));
+
+        // 移除中间的手指，之后的记录前移
+        tracker.remove(1);
+        assertEquals(2, tracker.size());
+        assertEquals(1, tracker.indexOf(2));
+        assertEquals(12, tracker.getHandle(1));
+        assertEquals(5f, tracker.getLastX(1), 0f);
+        assertEquals(6f, tracker.getLastY(1), 0f);
+
+        tracker.clear();
+        assertEquals(0, tracker.size());
+        assertEquals(-1, tracker.indexOf(5));
+    }
+
+    @Test
+    public void add_beyondLimit_returnsNoSlot() {
+        PointerTracker tracker = new PointerTracker();
+        for (int i = 0; i < PointerTracker.MAX_POINTERS; i++) {
+            assertEquals(i, tracker.add(i, i, 0f, 0f));
+        }
+        assertEquals(PointerTracker.NO_SLOT, tracker.add(PointerTracker.MAX_POINTERS, 0, 0f, 0f));
+        assertEquals(PointerTracker.MAX_POINTERS, tracker.size());
+    }
+
+    @Test
+    public void indexOf_followsPointerIdAfterOutOfOrderRemoval() {
+        PointerTracker tracker = new PointerTracker();
+        // PointerId与落指顺序、事件中的index无关
+        int[] ids = {9, 0, 31, 4, 17};
+        for (int i = 0; i < ids.length; i++) {
+            tracker.add(ids[i], 100 + i, i, i);
+        }
+        tracker.remove(tracker.indexOf(0));
+        tracker.remove(tracker.indexOf(17));
+        assertEquals(3, tracker.size());
+        assertEquals(-1, tracker.indexOf(0));
+        assertEquals(-1, tracker.indexOf(17));
+        // 其余手指的记录仍能按PointerId找到
+        assertEquals(100, tracker.getHandle(tracker.indexOf(9)));
+        assertEquals(102, tracker.getHandle(tracker.indexOf(31)));
+        assertEquals(103, tracker.getHandle(tracker.indexOf(4)));
+        assertEquals(3f, tracker.getLastX(tracker.indexOf(4)), 0f);
+
+        // 抬起的手指可以再次落下
+        assertEquals(3, tracker.add(0, 200, 0f, 0f));
+        assertEquals(200, tracker.getHandle(tracker.indexOf(0)));
+    }
+
+    @Test
+    public void add_rejectsDuplicateAndOutOfRangePointerIds() {
+        PointerTracker tracker = new PointerTracker();
+        assertEquals(0, tracker.add(3, 1, 0f, 0f));
+        assertEquals(PointerTracker.NO_SLOT, tracker.add(3, 2, 0f, 0f));
+        assertEquals(PointerTracker.NO_SLOT, tracker.add(-1, 2, 0f, 0f));
+        assertEquals(PointerTracker.NO_SLOT, tracker.add(PointerTracker.MAX_POINTER_ID + 1, 2, 0f, 0f));
+        assertEquals(1, tracker.size());
+        assertEquals(-1, tracker.indexOf(PointerTracker.MAX_POINTER_ID + 1));
+    }
+}
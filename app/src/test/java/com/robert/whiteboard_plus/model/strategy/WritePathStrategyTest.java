@@ -0,0 +1,111 @@
+package com.robert.whiteboard_plus.model.strategy;
+
+import com.robert.whiteboard_plus.handler.PointerTracker;
+import com.robert.whiteboard_plus.whiteboard.render.SampleRing;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 书写策略的单元测试，检查多指稳定书写时PointerTracker、WritePathStrategy、SampleRing这条路径不分配对象
+ */
+public class WritePathStrategyTest {
+
+    // 大屏教学场景下同时书写的手指数量
+    private static final int POINTERS = PointerTracker.MAX_POINTERS;
+    private static final int EVENTS = 100000;
+
+    @Test
+    public void steadyStateMove_allocatesNothing() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        SampleRing ring = new SampleRing();
+        WritePathStrategy strategy = new WritePathStrategy(null, ring);
+        PointerTracker tracker = new PointerTracker();
+        for (int i = 0; i < POINTERS; i++) {
+            tracker.add(pointerIdOf(i), handleOf(i), 0f, 0f);
+        }
+        CountingConsumer consumer = new CountingConsumer();
+        // 预热：让采样点数组扩容到位并完成JIT编译，之后重复使用
+        beginStrokes(strategy);
+        simulateMoves(tracker, strategy, ring, consumer);
+        beginStrokes(strategy);
+        consumer.count = 0;
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        simulateMoves(tracker, strategy, ring, consumer);
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        for (int i = 0; i < POINTERS; i++) {
+            // 落笔点加上每个事件的一个采样点
+            assertEquals(EVENTS + 1, strategy.builderOf(pointerIdOf(i), handleOf(i)).getCount());
+        }
+        assertEquals(EVENTS * POINTERS, consumer.count);
+        assertEquals("稳定书写时每个MotionEvent都不应分配对象", 0L, allocated);
+    }
+
+    @Test
+    public void moveWorldPath_ignoresOtherHandle() {
+        SampleRing ring = new SampleRing();
+        WritePathStrategy strategy = new WritePathStrategy(null, ring);
+        strategy.beginStroke(3, 7, 0f, 0f, 0.5f, 0);
+        strategy.moveWorldPath(3, 8, 1f, 1f, 0.5f, 1);
+        assertNull(strategy.builderOf(3, 8));
+        assertEquals(1, strategy.builderOf(3, 7).getCount());
+        // 采样点仍按句柄交给绘制层，由绘制层判断句柄是否有效
+        assertEquals(1, ring.drain(new CountingConsumer()));
+    }
+
+    /**
+     * 第i根手指的PointerId，不连续且与落指顺序相反
+     */
+    private static int pointerIdOf(int i) {
+        return (POINTERS - 1 - i) * 3 + 1;
+    }
+
+    private static int handleOf(int i) {
+        return 100 + i;
+    }
+
+    private static void beginStrokes(WritePathStrategy strategy) {
+        for (int i = 0; i < POINTERS; i++) {
+            strategy.beginStroke(pointerIdOf(i), handleOf(i), 0f, 0f, 0.5f, 0);
+        }
+    }
+
+    /**
+     * 按WriteHandler.onMove的方式处理EVENTS个ACTION_MOVE：事件中的手指按index倒序排列，
+     * 按PointerId找到记录，交给书写策略并更新历史位置；每个事件后由绘制线程一方取走采样点
+     */
+    private static void simulateMoves(PointerTracker tracker, WritePathStrategy strategy,
+                                      SampleRing ring, SampleRing.Consumer consumer) {
+        for (int e = 0; e < EVENTS; e++) {
+            for (int p = POINTERS - 1; p >= 0; p--) {
+                int index = tracker.indexOf(pointerIdOf(p));
+                float x = tracker.getLastX(index) + 1f;
+                float y = tracker.getLastY(index) + p;
+                strategy.moveWorldPath(tracker.getPointerId(index), tracker.getHandle(index), x, y, 0.5f, e + 1);
+                tracker.setLastPosition(index, x, y);
+            }
+            ring.drain(consumer);
+        }
+    }
+
+    private static class CountingConsumer implements SampleRing.Consumer {
+        int count = 0;
+
+        @Override
+        public void onSample(int op, int handle, float x, float y, float pressure, long time) {
+            count++;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.robert.whiteboard_plus.model.utils;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * long键哈希表的单元测试，以HashMap为参照随机增删，覆盖扩容与删除后的元素前移
+ */
+public class LongHashMapTest {
+
+    @Test
+    public void putGetRemove() {
+        LongHashMap<String> map = new LongHashMap<>();
+        assertNull(map.put(1L, "a"));
+        assertNull(map.put(-1L, "b"));
+        assertEquals("a", map.put(1L, "c"));
+        assertEquals(2, map.size());
+        assertEquals("c", map.get(1L));
+        assertEquals("b", map.get(-1L));
+        assertNull(map.get(2L));
+
+        assertEquals("c", map.remove(1L));
+        assertNull(map.remove(1L));
+        assertFalse(map.containsKey(1L));
+        assertEquals(1, map.size());
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get(-1L));
+    }
+
+    @Test
+    public void randomOperations_matchHashMap() {
+        LongHashMap<Long> map = new LongHashMap<>();
+        HashMap<Long, Long> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int n = 0; n < 200000; n++) {
+            // 键集中在较小范围内，制造大量冲突与删除
+            long key = ((long) random.nextInt(64) << 32) | (random.nextInt(64) & 0xFFFFFFFFL);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                Long value = random.nextLong();
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (Long key : expected.keySet()) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        // 遍历得到的元素与参照一致
+        int visited = 0;
+        for (int i = 0; i < map.capacity(); i++) {
+            if (map.valueAt(i) == null) continue;
+            assertEquals(expected.get(map.keyAt(i)), map.valueAt(i));
+            visited++;
+        }
+        assertEquals(expected.size(), visited);
+    }
+}
@@ -0,0 +1,181 @@
+package com.robert.whiteboard_plus.whiteboard.render;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 运动预测回放测试
+ * 按固定采样率回放合成的书写轨迹（带采样抖动），每收到一个采样点就预测HORIZON_MS之后的位置，
+ * 与轨迹在该时刻的真实位置比较。不预测时屏幕上显示的是最后一个采样点，它与真实位置的距离即延迟造成的滞后。
+ * 预测误差与不同延迟下的滞后对比，换算出预测等效减少的延迟
+ */
+public class MotionPredictorReplayTest {
+
+    // 240Hz数位板的采样间隔（毫秒）
+    private static final long SAMPLE_INTERVAL_MS = 4;
+    // 预测多久之后的位置，与绘制层一致约为一帧
+    private static final long HORIZON_MS = 16;
+    private static final long DURATION_MS = 2000;
+    // 采样抖动（白板坐标）
+    private static final float JITTER = 0.5f;
+
+    /**
+     * 书写轨迹，给出t毫秒时笔的真实位置
+     */
+    interface Trajectory {
+        void at(double t, float[] out);
+    }
+
+    /**
+     * 一次回放的结果
+     */
+    static class Result {
+        // 轨迹名称
+        String name;
+        // 预测位置与真实位置的平均距离
+        double predictionError;
+        // 最后一个采样点与真实位置的平均距离，即不预测时的滞后
+        double lagError;
+        // 预测成功的比例
+        double coverage;
+        // 等效减少的延迟（毫秒）
+        long latencyGainMs;
+
+        /**
+         * 作为断言失败时的说明，给出本次回放的各项数值
+         */
+        @Override
+        public String toString() {
+            return String.format("%s: 预测误差 %.2f, 滞后 %.2f, 预测比例 %.2f, 等效减少延迟 %dms",
+                    name, predictionError, lagError, coverage, latencyGainMs);
+        }
+    }
+
+    private static final Trajectory LINE = new Trajectory() {
+        @Override
+        public void at(double t, float[] out) {
+            out[0] = (float) (t * 1.0);
+            out[1] = (float) (t * 0.5);
+        }
+    };
+
+    private static final Trajectory CIRCLE = new Trajectory() {
+        @Override
+        public void at(double t, float[] out) {
+            double angle = 2 * Math.PI * t / 1000;
+            out[0] = (float) (500 + 150 * Math.cos(angle));
+            out[1] = (float) (500 + 150 * Math.sin(angle));
+        }
+    };
+
+    private static final Trajectory WAVE = new Trajectory() {
+        @Override
+        public void at(double t, float[] out) {
+            out[0] = (float) (t * 0.8);
+            out[1] = (float) (300 + 100 * Math.sin(2 * Math.PI * t / 600));
+        }
+    };
+
+    @Test
+    public void leastSquares_line_reducesLag() {
+        Result result = replay(new LeastSquaresPredictor(), LINE, "直线");
+        assertTrue(result.toString(), result.predictionError < result.lagError * 0.25);
+        assertTrue(result.toString(), result.latencyGainMs >= HORIZON_MS - 4);
+    }
+
+    @Test
+    public void leastSquares_circle_reducesLag() {
+        Result result = replay(new LeastSquaresPredictor(), CIRCLE, "圆");
+        assertTrue(result.toString(), result.predictionError < result.lagError * 0.5);
+        assertTrue(result.toString(), result.latencyGainMs >= HORIZON_MS / 2);
+    }
+
+    @Test
+    public void leastSquares_wave_reducesLag() {
+        Result result = replay(new LeastSquaresPredictor(), WAVE, "S形曲线");
+        assertTrue(result.toString(), result.predictionError < result.lagError * 0.5);
+        assertTrue(result.toString(), result.latencyGainMs >= HORIZON_MS / 2);
+    }
+
+    @Test
+    public void leastSquares_stopsPredictingWhenStale() {
+        LeastSquaresPredictor predictor = new LeastSquaresPredictor();
+        float[] out = new float[2];
+        assertFalse(predictor.predict(0, out));
+        predictor.addSample(0, 0, 100);
+        assertFalse(predictor.predict(116, out));
+        predictor.addSample(4, 0, 104);
+        assertTrue(predictor.predict(120, out));
+        assertEquals(20f, out[0], 0.01f);
+        // 笔停下太久
+        assertFalse(predictor.predict(104 + 200, out));
+        // 新的笔迹不沿用旧的采样点
+        predictor.reset();
+        predictor.addSample(50, 50, 300);
+        assertFalse(predictor.predict(310, out));
+    }
+
+    /**
+     * 回放一条轨迹并打印结果
+     */
+    static Result replay(MotionPredictor predictor, Trajectory trajectory, String name) {
+        Result result = new Result();
+        result.name = name;
+        float[] sample = new float[2];
+        float[] truth = new float[2];
+        float[] predicted = new float[2];
+        Random random = new Random(42);
+
+        double predictionSum = 0;
+        double[] lagSums = new double[(int) HORIZON_MS + 1];
+        int predictions = 0;
+        int steps = 0;
+        predictor.reset();
+        for (long t = 0; t + HORIZON_MS <= DURATION_MS; t += SAMPLE_INTERVAL_MS) {
+            trajectory.at(t, sample);
+            sample[0] += (random.nextFloat() * 2 - 1) * JITTER;
+            sample[1] += (random.nextFloat() * 2 - 1) * JITTER;
+            predictor.addSample(sample[0], sample[1], t);
+
+            // 不同延迟下最后一个采样点的滞后
+            for (int h = 0; h <= HORIZON_MS; h++) {
+                trajectory.at(t + h, truth);
+                lagSums[h] += distance(sample, truth);
+            }
+            steps++;
+
+            trajectory.at(t + HORIZON_MS, truth);
+            if (predictor.predict(t + HORIZON_MS, predicted)) {
+                predictionSum += distance(predicted, truth);
+                predictions++;
+            } else {
+                // 无法预测时显示最后一个采样点
+                predictionSum += distance(sample, truth);
+            }
+        }
+
+        result.predictionError = predictionSum / steps;
+        result.lagError = lagSums[(int) HORIZON_MS] / steps;
+        result.coverage = (double) predictions / steps;
+        // 预测误差相当于延迟为多少时的滞后
+        long effective = HORIZON_MS;
+        for (int h = 0; h <= HORIZON_MS; h++) {
+            if (lagSums[h] / steps >= result.predictionError) {
+                effective = h;
+                break;
+            }
+        }
+        result.latencyGainMs = HORIZON_MS - effective;
+
+        return result;
+    }
+
+    private static double distance(float[] a, float[] b) {
+        double dx = a[0] - b[0];
+        double dy = a[1] - b[1];
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -0,0 +1,107 @@
+package com.robert.whiteboard_plus.whiteboard.render;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 采样点环形缓冲区的单元测试，覆盖缓冲区写满时控制操作不丢失、顺序不变，以及按时间保留采样点
+ */
+public class SampleRingTest {
+
+    @Test
+    public void offer_full_dropsMoveButKeepsControlOps() {
+        SampleRing ring = new SampleRing(4);
+        assertTrue(ring.offer(SampleRing.OP_DOWN, 1, 0f, 0f, 0f, 0));
+        for (int i = 1; i < 4; i++) {
+            assertTrue(ring.offer(SampleRing.OP_MOVE, 1, i, i, 0.5f, i));
+        }
+        // 缓冲区已满：采样点被丢弃，抬笔、平移、落笔暂存
+        assertFalse(ring.offer(SampleRing.OP_MOVE, 1, 9f, 9f, 0.5f, 9));
+        assertTrue(ring.offer(SampleRing.OP_UP, 1, 0f, 0f, 0f, 10));
+        assertTrue(ring.offer(SampleRing.OP_OFFSET, 2, 5f, 6f, 0f, 0));
+        // 溢出区尚未取走时，即使缓冲区有空位，采样点也不能越过它们
+        assertFalse(ring.isEmpty());
+        assertTrue(ring.offer(SampleRing.OP_DOWN, 3, 7f, 8f, 0f, 11));
+        assertFalse(ring.offer(SampleRing.OP_MOVE, 3, 7f, 9f, 0.5f, 12));
+
+        Recorder recorder = new Recorder();
+        assertEquals(7, ring.drain(recorder));
+        assertEquals("0 1 1 1 3 2 0", recorder.ops());
+        assertEquals(3, recorder.handles.get(6).intValue());
+        assertTrue(ring.isEmpty());
+
+        // 取走溢出区后恢复写入缓冲区
+        assertTrue(ring.offer(SampleRing.OP_MOVE, 3, 7f, 10f, 0.5f, 13));
+        recorder.clear();
+        assertEquals(1, ring.drain(recorder));
+        assertEquals("1", recorder.ops());
+    }
+
+    @Test
+    public void drainUntil_holdsOverflowBehindHeldMove() {
+        SampleRing ring = new SampleRing(2);
+        ring.offer(SampleRing.OP_DOWN, 1, 0f, 0f, 0f, 0);
+        ring.offer(SampleRing.OP_MOVE, 1, 1f, 1f, 0.5f, 20);
+        ring.offer(SampleRing.OP_UP, 1, 0f, 0f, 0f, 20);
+
+        // 较晚的采样点被保留时，之后的抬笔也不能先被消费
+        Recorder recorder = new Recorder();
+        assertEquals(1, ring.drainUntil(10, recorder));
+        assertEquals("0", recorder.ops());
+        recorder.clear();
+        assertEquals(2, ring.drainUntil(20, recorder));
+        assertEquals("1 3", recorder.ops());
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    public void drainUntil_reportsHeldMovesWithoutConsuming() {
+        SampleRing ring = new SampleRing(16);
+        ring.offer(SampleRing.OP_MOVE, 1, 1f, 1f, 0.5f, 8);
+        ring.offer(SampleRing.OP_MOVE, 2, 2f, 2f, 0.5f, 12);
+        ring.offer(SampleRing.OP_MOVE, 1, 3f, 3f, 0.5f, 14);
+        ring.offer(SampleRing.OP_UP, 2, 0f, 0f, 0f, 15);
+
+        Recorder consumed = new Recorder();
+        Recorder pending = new Recorder();
+        assertEquals(1, ring.drainUntil(10, consumed, pending));
+        assertEquals("1", consumed.ops());
+        // 留下的采样点按写入顺序交给pending，控制操作不在其中
+        assertEquals("1 1", pending.ops());
+        assertEquals(2, pending.handles.get(0).intValue());
+        assertEquals(1, pending.handles.get(1).intValue());
+
+        consumed.clear();
+        assertEquals(3, ring.drain(consumed));
+        assertEquals("1 1 3", consumed.ops());
+    }
+
+    private static class Recorder implements SampleRing.Consumer {
+        final List<Integer> ops = new ArrayList<>();
+        final List<Integer> handles = new ArrayList<>();
+
+        @Override
+        public void onSample(int op, int handle, float x, float y, float pressure, long time) {
+            ops.add(op);
+            handles.add(handle);
+        }
+
+        String ops() {
+            StringBuilder builder = new StringBuilder();
+            for (Integer op : ops) {
+                if (builder.length() > 0) builder.append(' ');
+                builder.append(op);
+            }
+            return builder.toString();
+        }
+
+        void clear() {
+            ops.clear();
+            handles.clear();
+        }
+    }
+}